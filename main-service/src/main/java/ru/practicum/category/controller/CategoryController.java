@@ -2,6 +2,7 @@ package ru.practicum.category.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.category.service.CategoryService;
@@ -17,10 +18,11 @@ public class CategoryController {
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public List<CategoryDto> findAll(@RequestParam(defaultValue = "0") int from,
-                                     @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<List<CategoryDto>> findAll(@RequestParam(defaultValue = "0") int from,
+                                                     @RequestParam(defaultValue = "10") int size,
+                                                     @RequestParam(required = false) String cursor) {
 
-        return categoryService.findAll(from, size);
+        return categoryService.findAll(from, size, cursor).toResponseEntity();
     }
 
     @GetMapping("/{categoryId}")
@@ -1,9 +1,26 @@
 package ru.practicum.category.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.practicum.category.model.Category;
+import ru.practicum.config.EntityCacheConfig;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = EntityCacheConfig.CATEGORY_QUERIES)})
+    Slice<Category> findAllBy(Pageable pageable);
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = EntityCacheConfig.CATEGORY_QUERIES)})
+    Slice<Category> findAllByIdLessThan(Long id, Pageable pageable);
 }
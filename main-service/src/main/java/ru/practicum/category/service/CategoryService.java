@@ -2,8 +2,7 @@ package ru.practicum.category.service;
 
 import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.category.dto.NewCategoryDto;
-
-import java.util.List;
+import ru.practicum.pagination.CursorSlice;
 
 public interface CategoryService {
 
@@ -13,7 +12,7 @@ public interface CategoryService {
 
     void delete(Long categoryId);
 
-    List<CategoryDto> findAll(int from, int size);
+    CursorSlice<CategoryDto> findAll(int from, int size, String cursor);
 
     CategoryDto update(Long categoryId, NewCategoryDto newCategoryDto);
 }
@@ -3,7 +3,7 @@ package ru.practicum.category.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,13 +12,18 @@ import ru.practicum.category.dto.NewCategoryDto;
 import ru.practicum.category.mapper.CategoryMapper;
 import ru.practicum.category.model.Category;
 import ru.practicum.category.repository.CategoryRepository;
+import ru.practicum.config.EntityCacheConfig;
+import ru.practicum.config.EntityCacheEvictor;
 import ru.practicum.event.model.Event;
+import ru.practicum.event.repository.EventListingRepository;
 import ru.practicum.event.repository.EventRepository;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.exception.ValidationException;
+import ru.practicum.pagination.CursorSlice;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +33,8 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final EventRepository eventRepository;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final EventListingRepository eventListingRepository;
 
     @Transactional
     @Override
@@ -49,12 +56,14 @@ public class CategoryServiceImpl implements CategoryService {
         Category category = getCategoryId(categoryId);
 
         category.setName(newCategoryDto.getName());
+        entityCacheEvictor.evict(Category.class, categoryId, EntityCacheConfig.CATEGORY_QUERIES);
 
         try {
             category = categoryRepository.save(category);
         } catch (DataIntegrityViolationException e) {
             throw new ValidationException("Категория с таким именем уже существует");
         }
+        eventListingRepository.updateCategoryName(categoryId, category.getName());
 
         return categoryMapper.convertToCategoryDto(category);
     }
@@ -77,15 +86,18 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.deleteById(categoryId);
+        entityCacheEvictor.evict(Category.class, categoryId, EntityCacheConfig.CATEGORY_QUERIES);
     }
 
     @Override
-    public List<CategoryDto> findAll(int from, int size) {
-        Pageable page = PageRequest.of(from / size, size, Sort.by("id").descending());
-
-        return categoryRepository.findAll(page).stream()
-                .map(categoryMapper::convertToCategoryDto)
-                .collect(Collectors.toList());
+    public CursorSlice<CategoryDto> findAll(int from, int size, String cursor) {
+        Sort sort = Sort.by("id").descending();
+
+        Slice<Category> categories = cursor == null
+                ? categoryRepository.findAllBy(new OffsetPageRequest(from, size, sort))
+                : categoryRepository.findAllByIdLessThan(PageCursor.decode(cursor).getId(), PageRequest.of(0, size, sort));
+        return CursorSlice.of(categories, categoryMapper::convertToCategoryDto,
+                category -> PageCursor.of(category.getId()));
     }
 
     private Category getCategoryId(Long categoryId) {
@@ -2,6 +2,7 @@ package ru.practicum.compilation.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.compilation.dto.CompilationDto;
 import ru.practicum.compilation.service.CompilationService;
@@ -18,10 +19,11 @@ public class CompilationController {
     private final CompilationService compilationService;
 
     @GetMapping
-    public List<CompilationDto> findAll(@RequestParam(required = false) Boolean pinned,
-                                        @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                        @RequestParam(defaultValue = "10") @Positive int size) {
-        return compilationService.findAll(pinned, from, size);
+    public ResponseEntity<List<CompilationDto>> findAll(@RequestParam(required = false) Boolean pinned,
+                                                        @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                        @RequestParam(defaultValue = "10") @Positive int size,
+                                                        @RequestParam(required = false) String cursor) {
+        return compilationService.findAll(pinned, from, size, cursor).toResponseEntity();
     }
 
     @GetMapping("/{compilationId}")
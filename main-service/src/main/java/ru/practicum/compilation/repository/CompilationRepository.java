@@ -1,14 +1,19 @@
 package ru.practicum.compilation.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.practicum.compilation.model.Compilation;
 
-import java.util.List;
-
 @Repository
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+    Slice<Compilation> findAllBy(Pageable pageable);
+
+    Slice<Compilation> findAllByIdLessThan(Long id, Pageable pageable);
+
+    Slice<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+
+    Slice<Compilation> findAllByPinnedAndIdLessThan(Boolean pinned, Long id, Pageable pageable);
 
 }
@@ -3,8 +3,7 @@ package ru.practicum.compilation.service;
 import ru.practicum.compilation.dto.CompilationDto;
 import ru.practicum.compilation.dto.NewCompilationDto;
 import ru.practicum.compilation.dto.UpdateCompilationRequest;
-
-import java.util.List;
+import ru.practicum.pagination.CursorSlice;
 
 public interface CompilationService {
 
@@ -16,5 +15,5 @@ public interface CompilationService {
 
     void delete(Long compilationId);
 
-    List<CompilationDto> findAll(Boolean pinned, int from, int size);
+    CursorSlice<CompilationDto> findAll(Boolean pinned, int from, int size, String cursor);
 }
@@ -1,9 +1,9 @@
 package ru.practicum.compilation.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,9 +16,11 @@ import ru.practicum.compilation.repository.CompilationRepository;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.repository.EventRepository;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.pagination.CursorSlice;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -67,20 +69,23 @@ public class CompilationServiceImpl implements CompilationService {
     }
 
     @Override
-    public List<CompilationDto> findAll(Boolean pinned, int from, int size) {
-        Pageable page = PageRequest.of(from / size, size, Sort.by("id").descending());
+    public CursorSlice<CompilationDto> findAll(Boolean pinned, int from, int size, String cursor) {
+        Sort sort = Sort.by("id").descending();
+        Long after = cursor == null ? null : PageCursor.decode(cursor).getId();
+        Pageable page = after == null ? new OffsetPageRequest(from, size, sort) : PageRequest.of(0, size, sort);
 
+        Slice<Compilation> compilations;
         if (pinned != null) {
-            List<Compilation> compilations = compilationRepository.findAllByPinned(pinned, page);
-            return compilations.stream()
-                    .map(compilationMapper::convertToCompilationDto)
-                    .collect(Collectors.toList());
+            compilations = after == null
+                    ? compilationRepository.findAllByPinned(pinned, page)
+                    : compilationRepository.findAllByPinnedAndIdLessThan(pinned, after, page);
         } else {
-            Page<Compilation> compilations = compilationRepository.findAll(page);
-            return compilations.stream()
-                    .map(compilationMapper::convertToCompilationDto)
-                    .collect(Collectors.toList());
+            compilations = after == null
+                    ? compilationRepository.findAllBy(page)
+                    : compilationRepository.findAllByIdLessThan(after, page);
         }
+        return CursorSlice.of(compilations, compilationMapper::convertToCompilationDto,
+                compilation -> PageCursor.of(compilation.getId()));
     }
 
     @Transactional
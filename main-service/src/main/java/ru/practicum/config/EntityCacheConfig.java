@@ -0,0 +1,96 @@
+package ru.practicum.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Кэш второго уровня Hibernate для справочных сущностей поверх Caffeine JCache. Регионы создаются здесь,
+ * чтобы у них были ограничения по размеру и времени жизни; регион отметок обновления не ограничивается,
+ * иначе кэш запросов может отдать устаревший результат.
+ * <p>
+ * У каждого контекста свой CacheManager с уникальным URI: общий менеджер провайдера по умолчанию
+ * нельзя ни наполнить регионами дважды, ни закрыть, пока им пользуется другой контекст.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    public static final String CATEGORIES = "categories";
+
+    public static final String USERS = "users";
+
+    public static final String CATEGORY_QUERIES = "category-queries";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(@Value("${entity-cache.max-size:10000}") long maxSize,
+                                           @Value("${entity-cache.expire-after-write-ms:600000}") long expireAfterWriteMs) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("ewm-entity-cache:" + UUID.randomUUID()),
+                        EntityCacheConfig.class.getClassLoader());
+        for (String region : List.of(CATEGORIES, USERS, CATEGORY_QUERIES,
+                RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME)) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(expireAfterWriteMs)));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        }
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    /**
+     * Доля попаданий по регионам; счётчики попаданий и промахов публикует hibernate-micrometer.
+     */
+    @Bean
+    public MeterBinder entityCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            hitRatio(registry, CATEGORIES, statistics::getDomainDataRegionStatistics);
+            hitRatio(registry, USERS, statistics::getDomainDataRegionStatistics);
+            hitRatio(registry, CATEGORY_QUERIES, statistics::getQueryRegionStatistics);
+        };
+    }
+
+    private static void hitRatio(MeterRegistry registry, String region,
+                                 Function<String, CacheRegionStatistics> regionStatistics) {
+        Gauge.builder("hibernate.second.level.cache.hit.ratio", () -> {
+                    CacheRegionStatistics statistics = regionStatistics.apply(region);
+                    if (statistics == null) {
+                        return Double.NaN;
+                    }
+                    long requests = statistics.getHitCount() + statistics.getMissCount();
+                    return requests == 0 ? Double.NaN : (double) statistics.getHitCount() / requests;
+                })
+                .description("Доля попаданий в кэш второго уровня")
+                .tag("region", region)
+                .register(registry);
+    }
+}
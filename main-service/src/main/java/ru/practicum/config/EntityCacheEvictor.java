@@ -0,0 +1,40 @@
+package ru.practicum.config;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Явно удаляет изменённые справочные сущности из кэша второго уровня после завершения транзакции,
+ * в том числе после отката: так кэш не переживёт запись в обход сессии Hibernate.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public void evict(Class<?> entityClass, Object id, String... queryRegions) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(entityClass, id, queryRegions);
+                }
+            });
+        } else {
+            evictNow(entityClass, id, queryRegions);
+        }
+    }
+
+    private void evictNow(Class<?> entityClass, Object id, String... queryRegions) {
+        entityManagerFactory.getCache().evict(entityClass, id);
+        for (String queryRegion : queryRegions) {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(queryRegion);
+        }
+    }
+}
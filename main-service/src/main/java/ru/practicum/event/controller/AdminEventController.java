@@ -3,6 +3,7 @@ package ru.practicum.event.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.event.dto.EventFullDto;
@@ -24,17 +25,20 @@ public class AdminEventController {
 
     @GetMapping
     @ResponseStatus(code = HttpStatus.OK)
-    public List<EventFullDto> getAdminEvents(@RequestParam(name = "users", required = false) List<Long> users,
-                                             @RequestParam(name = "states", required = false) List<EventState> states,
-                                             @RequestParam(name = "categories", required = false) List<Long> categories,
-                                             @RequestParam(name = "rangeStart", required = false)
-                                             @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
-                                             @RequestParam(name = "rangeEnd", required = false)
-                                             @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
-                                             @RequestParam(name = "from", defaultValue = "0") int from,
-                                             @RequestParam(name = "size", defaultValue = "10") int size) {
-
-        return eventService.getAdminEvents(users, states, categories, rangeStart, rangeEnd, from, size);
+    public ResponseEntity<List<EventFullDto>> getAdminEvents(
+            @RequestParam(name = "users", required = false) List<Long> users,
+            @RequestParam(name = "states", required = false) List<EventState> states,
+            @RequestParam(name = "categories", required = false) List<Long> categories,
+            @RequestParam(name = "rangeStart", required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
+            @RequestParam(name = "rangeEnd", required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
+            @RequestParam(name = "from", defaultValue = "0") int from,
+            @RequestParam(name = "size", defaultValue = "10") int size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+
+        return eventService.getAdminEvents(users, states, categories, rangeStart, rangeEnd, from, size, cursor)
+                .toResponseEntity();
     }
 
     @PatchMapping(path = "/{eventId}")
@@ -2,6 +2,7 @@ package ru.practicum.event.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.event.dto.*;
@@ -28,11 +29,12 @@ public class PrivateEventController {
     }
 
     @GetMapping
-    public List<EventShortDto> getUserEvents(@PathVariable Long userId,
-                                             @RequestParam(defaultValue = "0") int from,
-                                             @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<List<EventShortDto>> getUserEvents(@PathVariable Long userId,
+                                                             @RequestParam(defaultValue = "0") int from,
+                                                             @RequestParam(defaultValue = "10") int size,
+                                                             @RequestParam(required = false) String cursor) {
 
-        return eventService.getUserEvents(userId, from, size);
+        return eventService.getUserEvents(userId, from, size, cursor).toResponseEntity();
     }
 
     @GetMapping("/{eventId}")
@@ -49,9 +51,14 @@ public class PrivateEventController {
 
     @GetMapping("/{eventId}/requests")
     @ResponseStatus(HttpStatus.OK)
-    public List<ParticipationRequestDto> getAllParticipationRequestsFromEventByOwner(@PathVariable("userId") Long userId,
-                                                                                     @PathVariable("eventId") Long eventId) {
-        return participationRequestService.getAllParticipationRequestsFromEventByOwner(userId, eventId);
+    public ResponseEntity<List<ParticipationRequestDto>> getAllParticipationRequestsFromEventByOwner(
+            @PathVariable("userId") Long userId,
+            @PathVariable("eventId") Long eventId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        return participationRequestService.getAllParticipationRequestsFromEventByOwner(userId, eventId, from, size, cursor)
+                .toResponseEntity();
     }
 
     @PatchMapping("/{eventId}/requests")
@@ -2,14 +2,18 @@ package ru.practicum.event.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.event.dto.EventFullDto;
 import ru.practicum.event.dto.EventShortDto;
+import ru.practicum.event.dto.EventSuggestionDto;
 import ru.practicum.event.model.EventSort;
 import ru.practicum.event.service.EventService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Positive;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,13 +25,19 @@ public class PublicEventController {
 
     private final EventService eventService;
 
+    @GetMapping("/suggest")
+    public List<EventSuggestionDto> suggest(@RequestParam String prefix,
+                                            @RequestParam(defaultValue = "10") @Positive @Max(50) int size) {
+        return eventService.suggest(prefix, size);
+    }
+
     @GetMapping("/{eventId}")
     public EventFullDto getById(@PathVariable Long eventId, HttpServletRequest httpServletRequest) {
         return eventService.get(eventId, httpServletRequest);
     }
 
     @GetMapping
-    public List<EventShortDto> getAll(
+    public ResponseEntity<List<EventShortDto>> getAll(
             @RequestParam(required = false) String text,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) Boolean paid,
@@ -37,8 +47,10 @@ public class PublicEventController {
             @RequestParam(defaultValue = "EVENT_DATE") EventSort sort,
             @RequestParam(defaultValue = "0") int from,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
             HttpServletRequest request) {
 
-        return eventService.getAll(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, from, size, sort, request);
+        return eventService.getAll(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, from, size, cursor,
+                sort, request).toResponseEntity();
     }
 }
@@ -56,4 +56,6 @@ public class EventFullDto {
     private String title;
 
     private Long views;
+
+    private boolean highDemand;
 }
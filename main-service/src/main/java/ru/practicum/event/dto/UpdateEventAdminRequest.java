@@ -45,4 +45,6 @@ public class UpdateEventAdminRequest {
 
     @Size(min = 3, max = 120)
     private String title;
+
+    private Boolean highDemand;
 }
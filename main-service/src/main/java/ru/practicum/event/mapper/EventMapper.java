@@ -6,6 +6,7 @@ import ru.practicum.event.dto.EventFullDto;
 import ru.practicum.event.dto.EventShortDto;
 import ru.practicum.event.dto.NewEventDto;
 import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventShortView;
 
 @Mapper(componentModel = "spring")
 public interface EventMapper {
@@ -18,9 +19,16 @@ public interface EventMapper {
     @Mapping(target = "publishedOn", ignore = true)
     @Mapping(target = "state", ignore = true)
     @Mapping(target = "views", ignore = true)
+    @Mapping(target = "highDemand", ignore = true)
     Event convertToEvent(NewEventDto newEventDto);
 
     EventFullDto convertToEventFullDto(Event event);
 
     EventShortDto convertToEventShortDto(Event event);
+
+    @Mapping(target = "category.id", source = "categoryId")
+    @Mapping(target = "category.name", source = "categoryName")
+    @Mapping(target = "initiator.id", source = "initiatorId")
+    @Mapping(target = "initiator.email", source = "initiatorEmail")
+    EventShortDto convertToEventShortDto(EventShortView event);
 }
@@ -26,6 +26,11 @@ public class Event {
     @ManyToOne(fetch = FetchType.LAZY)
     private Category category;
 
+    /**
+     * Меняется только условным UPDATE в {@code EventSeatRepository}: полное сохранение сущности не должно
+     * записывать обратно прочитанное раньше значение.
+     */
+    @Column(insertable = false, updatable = false)
     private Long confirmedRequests;
 
     @Column(name = "created_on")
@@ -56,7 +61,16 @@ public class Event {
 
     private String title;
 
+    /**
+     * Записывается синхронизатором просмотров, см. {@code EventViewsRepository}.
+     */
+    @Column(insertable = false, updatable = false)
     private Long views;
+
+    /**
+     * Заявки на событие принимаются в очередь и подтверждаются пачками, см. {@code EventAdmissionQueue}.
+     */
+    private boolean highDemand;
 }
 
 
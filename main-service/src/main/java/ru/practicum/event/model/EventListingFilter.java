@@ -0,0 +1,27 @@
+package ru.practicum.event.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Условия публичного поиска событий. Пустые поля не ограничивают выборку.
+ */
+@Getter
+@Builder
+public class EventListingFilter {
+
+    private String text;
+
+    private List<Long> categories;
+
+    private Boolean paid;
+
+    private LocalDateTime rangeStart;
+
+    private LocalDateTime rangeEnd;
+
+    private Boolean onlyAvailable;
+}
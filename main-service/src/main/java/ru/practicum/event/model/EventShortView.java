@@ -0,0 +1,43 @@
+package ru.practicum.event.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка списка событий: только колонки, нужные для {@code EventShortDto}, вместе с категорией и инициатором.
+ * Читается одним запросом без загрузки сущностей.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class EventShortView {
+
+    private Long id;
+
+    private String annotation;
+
+    private Long categoryId;
+
+    private String categoryName;
+
+    private Long confirmedRequests;
+
+    private LocalDateTime createdOn;
+
+    private LocalDateTime eventDate;
+
+    private Long initiatorId;
+
+    private String initiatorEmail;
+
+    private boolean paid;
+
+    private LocalDateTime publishedOn;
+
+    private String title;
+
+    private Long views;
+}
@@ -2,5 +2,6 @@ package ru.practicum.event.model;
 
 public enum EventSort {
     EVENT_DATE,
-    VIEWS
+    VIEWS,
+    RELEVANCE
 }
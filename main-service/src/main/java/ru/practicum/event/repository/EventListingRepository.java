@@ -0,0 +1,192 @@
+package ru.practicum.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.category.dto.CategoryDto;
+import ru.practicum.event.dto.EventFullDto;
+import ru.practicum.event.dto.LocationDto;
+import ru.practicum.event.model.EventListingFilter;
+import ru.practicum.event.model.EventShortView;
+import ru.practicum.event.model.EventSort;
+import ru.practicum.event.model.EventState;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
+import ru.practicum.user.dto.UserShortDto;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Плоская копия опубликованных событий в event_listing для публичных запросов: категория, инициатор
+ * и место уже подставлены, поэтому список и карточка события читаются из одной таблицы без соединений.
+ * Строки пересчитываются из events в той же транзакции, в которой меняется событие.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventListingRepository {
+
+    private static final String SHORT_COLUMNS = "event_id, annotation, category_id, category_name, " +
+            "confirmed_requests, created_on, event_date, initiator_id, initiator_email, paid, published_on, title, views";
+
+    private static final RowMapper<EventShortView> SHORT_VIEW = (rs, rowNum) -> new EventShortView(
+            rs.getLong("event_id"),
+            rs.getString("annotation"),
+            rs.getLong("category_id"),
+            rs.getString("category_name"),
+            rs.getLong("confirmed_requests"),
+            rs.getTimestamp("created_on").toLocalDateTime(),
+            rs.getTimestamp("event_date").toLocalDateTime(),
+            rs.getLong("initiator_id"),
+            rs.getString("initiator_email"),
+            rs.getBoolean("paid"),
+            rs.getTimestamp("published_on").toLocalDateTime(),
+            rs.getString("title"),
+            rs.getLong("views"));
+
+    private static final RowMapper<EventFullDto> FULL_DTO = (rs, rowNum) -> new EventFullDto(
+            rs.getLong("event_id"),
+            rs.getString("annotation"),
+            new CategoryDto(rs.getLong("category_id"), rs.getString("category_name")),
+            rs.getLong("confirmed_requests"),
+            rs.getTimestamp("created_on").toLocalDateTime(),
+            rs.getString("description"),
+            rs.getTimestamp("event_date").toLocalDateTime(),
+            new UserShortDto(rs.getLong("initiator_id"), rs.getString("initiator_email")),
+            new LocationDto(rs.getDouble("lat"), rs.getDouble("lon")),
+            rs.getBoolean("paid"),
+            rs.getLong("participant_limit"),
+            rs.getTimestamp("published_on").toLocalDateTime(),
+            rs.getBoolean("request_moderation"),
+            EventState.PUBLISHED,
+            rs.getString("title"),
+            rs.getLong("views"),
+            rs.getBoolean("high_demand"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Приводит строки событий к текущему состоянию events: опубликованные вставляет или перезаписывает,
+     * остальные удаляет. Идентификаторы нужно передавать упорядоченными, чтобы параллельные транзакции
+     * блокировали строки в одном порядке.
+     */
+    public void refresh(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        Map<String, Object> parameters = Map.of("ids", eventIds, "state", EventState.PUBLISHED.name());
+        jdbcTemplate.update("INSERT INTO event_listing (event_id, annotation, category_id, category_name, " +
+                "confirmed_requests, created_on, description, event_date, initiator_id, initiator_email, lat, lon, " +
+                "paid, participant_limit, published_on, request_moderation, title, views, high_demand) " +
+                "SELECT e.id, e.annotation, c.id, c.name, COALESCE(e.confirmed_requests, 0), e.created_on, " +
+                "e.description, e.event_date, u.id, u.email, l.lat, l.lon, COALESCE(e.paid, FALSE), " +
+                "COALESCE(e.participant_limit, 0), e.published_on, COALESCE(e.request_moderation, TRUE), " +
+                "e.title, e.views, e.high_demand " +
+                "FROM events e " +
+                "JOIN categories c ON c.id = e.category_id " +
+                "JOIN users u ON u.id = e.initiator_id " +
+                "JOIN locations l ON l.id = e.location_id " +
+                "WHERE e.id IN (:ids) AND e.state = :state " +
+                "ORDER BY e.id " +
+                "ON CONFLICT (event_id) DO UPDATE SET annotation = EXCLUDED.annotation, " +
+                "category_id = EXCLUDED.category_id, category_name = EXCLUDED.category_name, " +
+                "confirmed_requests = EXCLUDED.confirmed_requests, description = EXCLUDED.description, " +
+                "event_date = EXCLUDED.event_date, initiator_email = EXCLUDED.initiator_email, " +
+                "lat = EXCLUDED.lat, lon = EXCLUDED.lon, paid = EXCLUDED.paid, " +
+                "participant_limit = EXCLUDED.participant_limit, published_on = EXCLUDED.published_on, " +
+                "request_moderation = EXCLUDED.request_moderation, title = EXCLUDED.title, views = EXCLUDED.views, " +
+                "high_demand = EXCLUDED.high_demand",
+                parameters);
+        jdbcTemplate.update("DELETE FROM event_listing WHERE event_id IN (:ids) " +
+                "AND event_id NOT IN (SELECT id FROM events WHERE id IN (:ids) AND state = :state)", parameters);
+    }
+
+    public void updateCategoryName(Long categoryId, String name) {
+        jdbcTemplate.update("UPDATE event_listing SET category_name = :name WHERE category_id = :categoryId",
+                new MapSqlParameterSource()
+                        .addValue("categoryId", categoryId)
+                        .addValue("name", name));
+    }
+
+    public Optional<EventFullDto> findById(Long eventId) {
+        return jdbcTemplate.query("SELECT * FROM event_listing WHERE event_id = :id", Map.of("id", eventId), FULL_DTO)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Страница списка в порядке sort. Курсор продолжает список по ключу сортировки и потому не совместим
+     * с RELEVANCE: ранг пересчитывается при каждом запросе.
+     */
+    public Slice<EventShortView> find(EventListingFilter filter, EventSort sort, PageCursor after,
+                                      long offset, int size) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        List<String> conditions = new ArrayList<>();
+        boolean hasText = filter.getText() != null && !filter.getText().isBlank();
+
+        if (hasText) {
+            parameters.addValue("text", filter.getText());
+            conditions.add("search_vector @@ plainto_tsquery('russian', :text)");
+        }
+        if (filter.getCategories() != null && !filter.getCategories().isEmpty()) {
+            parameters.addValue("categories", filter.getCategories());
+            conditions.add("category_id IN (:categories)");
+        }
+        if (filter.getPaid() != null) {
+            parameters.addValue("paid", filter.getPaid());
+            conditions.add("paid = :paid");
+        }
+        if (filter.getRangeStart() != null) {
+            parameters.addValue("rangeStart", Timestamp.valueOf(filter.getRangeStart()));
+            conditions.add("event_date > :rangeStart");
+        }
+        if (filter.getRangeEnd() != null) {
+            parameters.addValue("rangeEnd", Timestamp.valueOf(filter.getRangeEnd()));
+            conditions.add("event_date < :rangeEnd");
+        }
+        if (Boolean.TRUE.equals(filter.getOnlyAvailable())) {
+            conditions.add("(confirmed_requests <= participant_limit OR participant_limit <= 0)");
+        }
+
+        String orderBy;
+        if (sort == EventSort.VIEWS) {
+            orderBy = "views DESC, event_id";
+            if (after != null) {
+                parameters.addValue("afterViews", after.getLongKey());
+                parameters.addValue("afterId", after.getId());
+                conditions.add("(views < :afterViews OR (views = :afterViews AND event_id > :afterId))");
+            }
+        } else if (sort == EventSort.RELEVANCE && hasText) {
+            orderBy = "ts_rank(search_vector, plainto_tsquery('russian', :text)) DESC, event_id";
+        } else {
+            orderBy = "event_date, event_id";
+            if (after != null) {
+                parameters.addValue("afterEventDate", Timestamp.valueOf(after.getDateTimeKey()));
+                parameters.addValue("afterId", after.getId());
+                conditions.add("(event_date, event_id) > (:afterEventDate, :afterId)");
+            }
+        }
+
+        // Лишняя строка показывает, есть ли следующая страница, без отдельного COUNT
+        parameters.addValue("limit", size + 1);
+        parameters.addValue("offset", offset);
+        List<EventShortView> content = jdbcTemplate.query("SELECT " + SHORT_COLUMNS + " FROM event_listing" +
+                (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions)) +
+                " ORDER BY " + orderBy + " LIMIT :limit OFFSET :offset", parameters, SHORT_VIEW);
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, new OffsetPageRequest(offset, size, Sort.unsorted()), hasNext);
+    }
+}
@@ -1,14 +1,15 @@
 package ru.practicum.event.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.category.model.Category;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
+import ru.practicum.pagination.PageCursor;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import java.time.LocalDateTime;
@@ -16,16 +17,16 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event>,
+        EventSliceRepository {
 
     List<Event> findByCategory(Category category);
 
-    Page<Event> findAllByInitiatorId(Long userId, Pageable pageable);
-
-    Optional<Event> findByIdAndStateIs(Long eventId, EventState published);
-
     Optional<Event> findByIdAndInitiatorId(Long eventId, Long userId);
 
+    @Query("select e.id, e.title from Event e where e.state = :state")
+    List<Object[]> findIdAndTitleByState(@Param("state") EventState state);
+
     static Specification<Event> hasUsers(List<Long> users) {
         return (root, query, criteriaBuilder) -> {
             if (users == null || users.size() == 0) {
@@ -40,19 +41,6 @@ public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecific
         };
     }
 
-    static Specification<Event> hasText(String text) {
-        return (root, query, criteriaBuilder) -> {
-            if (text == null) {
-                return criteriaBuilder.isTrue(criteriaBuilder.literal(true));
-            } else {
-                return criteriaBuilder.or(criteriaBuilder.like(
-                                criteriaBuilder.lower(root.get("annotation")), text.toLowerCase()),
-                        criteriaBuilder.like(
-                                criteriaBuilder.lower(root.get("description")), text.toLowerCase()));
-            }
-        };
-    }
-
     static Specification<Event> hasCategories(List<Long> categories) {
         return (root, query, criteriaBuilder) -> {
             if (categories == null || categories.size() == 0) {
@@ -91,35 +79,33 @@ public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecific
         };
     }
 
-    static Specification<Event> hasAvailable(Boolean onlyAvailable) {
+    static Specification<Event> hasRangeEnd(LocalDateTime rangeEnd) {
         return (root, query, criteriaBuilder) -> {
-            if (onlyAvailable != null && onlyAvailable) {
-                return criteriaBuilder.or(criteriaBuilder.le(root.get("confirmedRequests"), root.get("participantLimit")),
-                        criteriaBuilder.le(root.get("participantLimit"), 0));
-            } else {
+            if (rangeEnd == null) {
                 return criteriaBuilder.isTrue(criteriaBuilder.literal(true));
+            } else {
+                return criteriaBuilder.lessThan(root.get("eventDate"), rangeEnd);
             }
         };
     }
 
-    static Specification<Event> hasPaid(Boolean paid) {
+    static Specification<Event> afterId(PageCursor cursor) {
         return (root, query, criteriaBuilder) -> {
-            if (paid == null) {
+            if (cursor == null) {
                 return criteriaBuilder.isTrue(criteriaBuilder.literal(true));
             } else {
-                return criteriaBuilder.equal(root.get("paid"), paid);
+                return criteriaBuilder.greaterThan(root.get("id"), cursor.getId());
             }
         };
     }
 
-    static Specification<Event> hasRangeEnd(LocalDateTime rangeEnd) {
+    static Specification<Event> beforeId(PageCursor cursor) {
         return (root, query, criteriaBuilder) -> {
-            if (rangeEnd == null) {
+            if (cursor == null) {
                 return criteriaBuilder.isTrue(criteriaBuilder.literal(true));
             } else {
-                return criteriaBuilder.lessThan(root.get("eventDate"), rangeEnd);
+                return criteriaBuilder.lessThan(root.get("id"), cursor.getId());
             }
         };
     }
-
 }
@@ -0,0 +1,52 @@
+package ru.practicum.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Счётчик подтверждённых заявок events.confirmed_requests. Места резервируются одним условным UPDATE,
+ * без чтения события в Java: проверка лимита и увеличение счётчика идут под блокировкой строки,
+ * поэтому параллельные заявки не могут занять больше мест, чем осталось.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventSeatRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Занимает до seats свободных мест и возвращает, сколько удалось занять. Лимит 0 означает отсутствие
+     * ограничения. 0 возвращается и для несуществующего события.
+     */
+    public int reserve(Long eventId, int seats) {
+        // FOR UPDATE в CTE читает последнюю зафиксированную версию строки после ожидания блокировки,
+        // иначе свободные места считались бы по снимку на начало запроса
+        List<Integer> granted = jdbcTemplate.queryForList("WITH reservation AS (" +
+                        "SELECT id, CASE WHEN COALESCE(participant_limit, 0) = 0 THEN :seats " +
+                        "ELSE LEAST(:seats, GREATEST(participant_limit - confirmed_requests, 0)) END AS granted " +
+                        "FROM events WHERE id = :eventId FOR UPDATE) " +
+                        "UPDATE events e SET confirmed_requests = e.confirmed_requests + reservation.granted " +
+                        "FROM reservation WHERE e.id = reservation.id AND reservation.granted > 0 " +
+                        "RETURNING reservation.granted",
+                new MapSqlParameterSource()
+                        .addValue("eventId", eventId)
+                        .addValue("seats", seats),
+                Integer.class);
+        return granted.isEmpty() ? 0 : granted.get(0);
+    }
+
+    /**
+     * Возвращает места, занятые под заявки, которые так и не были записаны.
+     */
+    public void release(Long eventId, int seats) {
+        jdbcTemplate.update("UPDATE events SET confirmed_requests = GREATEST(confirmed_requests - :seats, 0) " +
+                        "WHERE id = :eventId",
+                new MapSqlParameterSource()
+                        .addValue("eventId", eventId)
+                        .addValue("seats", seats));
+    }
+}
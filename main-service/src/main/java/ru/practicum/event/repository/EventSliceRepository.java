@@ -0,0 +1,21 @@
+package ru.practicum.event.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventShortView;
+
+public interface EventSliceRepository {
+
+    /**
+     * Как {@code findAll(Specification, Pageable)}, но без запроса COUNT: читается на одну строку больше страницы,
+     * чтобы узнать, есть ли следующая. Категория, инициатор и место загружаются в том же запросе.
+     */
+    Slice<Event> findSlice(Specification<Event> specification, Pageable pageable);
+
+    /**
+     * То же для краткого представления: выбираются только колонки {@link EventShortView}.
+     */
+    Slice<EventShortView> findShortSlice(Specification<Event> specification, Pageable pageable);
+}
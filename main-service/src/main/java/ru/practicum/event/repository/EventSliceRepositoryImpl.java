@@ -0,0 +1,83 @@
+package ru.practicum.event.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.category.model.Category;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventShortView;
+import ru.practicum.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class EventSliceRepositoryImpl implements EventSliceRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Event> findSlice(Specification<Event> specification, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Event> query = criteriaBuilder.createQuery(Event.class);
+        Root<Event> root = query.from(Event.class);
+        root.fetch("category");
+        root.fetch("initiator");
+        root.fetch("location");
+        query.select(root);
+
+        return readSlice(specification, pageable, criteriaBuilder, query, root);
+    }
+
+    @Override
+    public Slice<EventShortView> findShortSlice(Specification<Event> specification, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventShortView> query = criteriaBuilder.createQuery(EventShortView.class);
+        Root<Event> root = query.from(Event.class);
+        Join<Event, Category> category = root.join("category");
+        Join<Event, User> initiator = root.join("initiator");
+        query.select(criteriaBuilder.construct(EventShortView.class,
+                root.get("id"),
+                root.get("annotation"),
+                category.get("id"),
+                category.get("name"),
+                root.get("confirmedRequests"),
+                root.get("createdOn"),
+                root.get("eventDate"),
+                initiator.get("id"),
+                initiator.get("email"),
+                root.get("paid"),
+                root.get("publishedOn"),
+                root.get("title"),
+                root.get("views")));
+
+        return readSlice(specification, pageable, criteriaBuilder, query, root);
+    }
+
+    private <T> Slice<T> readSlice(Specification<Event> specification, Pageable pageable,
+                                   CriteriaBuilder criteriaBuilder, CriteriaQuery<T> query, Root<Event> root) {
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        List<T> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+}
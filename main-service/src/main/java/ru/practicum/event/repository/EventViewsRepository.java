@@ -0,0 +1,72 @@
+package ru.practicum.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Материализованные просмотры в events.views и их копия в event_listing.views,
+ * а также отметка, до которой они синхронизированы со статистикой.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventViewsRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<LocalDateTime> findWatermark(String name) {
+        List<Timestamp> watermarks = jdbcTemplate.queryForList("SELECT watermark FROM sync_watermarks WHERE name = :name",
+                Map.of("name", name), Timestamp.class);
+        return watermarks.stream()
+                .findFirst()
+                .map(Timestamp::toLocalDateTime);
+    }
+
+    public void saveWatermark(String name, LocalDateTime watermark) {
+        jdbcTemplate.update("INSERT INTO sync_watermarks (name, watermark) VALUES (:name, :watermark) " +
+                        "ON CONFLICT (name) DO UPDATE SET watermark = EXCLUDED.watermark",
+                new MapSqlParameterSource()
+                        .addValue("name", name)
+                        .addValue("watermark", watermark));
+    }
+
+    public Optional<LocalDateTime> findEarliestCreatedOn() {
+        return Optional.ofNullable(jdbcTemplate.getJdbcTemplate()
+                        .queryForObject("SELECT MIN(created_on) FROM events", Timestamp.class))
+                .map(Timestamp::toLocalDateTime);
+    }
+
+    public Map<Long, LocalDateTime> findCreatedOn(Collection<Long> eventIds) {
+        Map<Long, LocalDateTime> createdOn = new HashMap<>(eventIds.size() * 2);
+        jdbcTemplate.query("SELECT id, created_on FROM events WHERE id IN (:ids)", Map.of("ids", eventIds),
+                rs -> {
+                    createdOn.put(rs.getLong("id"), rs.getTimestamp("created_on").toLocalDateTime());
+                });
+        return createdOn;
+    }
+
+    /**
+     * Записывает просмотры пачкой, пропуская строки, где значение не изменилось.
+     */
+    public void updateViews(Map<Long, Long> views) {
+        SqlParameterSource[] batch = views.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("id", entry.getKey())
+                        .addValue("views", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("UPDATE events SET views = :views WHERE id = :id AND views IS DISTINCT FROM :views",
+                batch);
+        jdbcTemplate.batchUpdate("UPDATE event_listing SET views = :views " +
+                "WHERE event_id = :id AND views IS DISTINCT FROM :views", batch);
+    }
+}
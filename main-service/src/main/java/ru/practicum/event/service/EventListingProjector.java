@@ -0,0 +1,53 @@
+package ru.practicum.event.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.event.repository.EventListingRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Переносит изменения событий в event_listing. События, изменённые за транзакцию, собираются
+ * и пересчитываются один раз перед её фиксацией: так таблица для чтения меняется атомарно с events.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventListingProjector {
+
+    private final EventListingRepository eventListingRepository;
+    private final EntityManager entityManager;
+
+    public void eventChanged(Long eventId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventListingRepository.refresh(List.of(eventId));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> changed = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (changed == null) {
+            Set<Long> eventIds = new TreeSet<>();
+            TransactionSynchronizationManager.bindResource(this, eventIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Пересчёт читает events через JDBC, поэтому изменения сессии должны быть уже в базе
+                    entityManager.flush();
+                    eventListingRepository.refresh(eventIds);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EventListingProjector.this);
+                }
+            });
+            changed = eventIds;
+        }
+        changed.add(eventId);
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.event.service;
 import ru.practicum.event.dto.*;
 import ru.practicum.event.model.EventSort;
 import ru.practicum.event.model.EventState;
+import ru.practicum.pagination.CursorSlice;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
@@ -16,16 +17,19 @@ public interface EventService {
 
     EventFullDto updateUserEventById(Long eventId, Long userId, UpdateEventUserRequest eventDto);
 
-    List<EventShortDto> getUserEvents(Long userId, int from, int size);
+    CursorSlice<EventShortDto> getUserEvents(Long userId, int from, int size, String cursor);
 
-    List<EventShortDto> getAll(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
-                               LocalDateTime rangeEnd, Boolean onlyAvailable, int from, int size,
-                               EventSort sort, HttpServletRequest request);
+    CursorSlice<EventShortDto> getAll(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
+                                      LocalDateTime rangeEnd, Boolean onlyAvailable, int from, int size, String cursor,
+                                      EventSort sort, HttpServletRequest request);
 
-    List<EventFullDto> getAdminEvents(List<Long> users, List<EventState> states, List<Long> categories,
-                                      LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size);
+    CursorSlice<EventFullDto> getAdminEvents(List<Long> users, List<EventState> states, List<Long> categories,
+                                             LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size,
+                                             String cursor);
 
     EventFullDto getUserEventById(Long userId, Long eventId);
 
     EventFullDto get(Long eventId, HttpServletRequest request);
+
+    List<EventSuggestionDto> suggest(String prefix, int size);
 }
@@ -1,35 +1,38 @@
 package ru.practicum.event.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.EndpointHitDto;
-import ru.practicum.StatsClient;
-import ru.practicum.ViewStatsDto;
+import ru.practicum.EventViews;
+import ru.practicum.StatsHitRecorder;
 import ru.practicum.category.model.Category;
 import ru.practicum.category.repository.CategoryRepository;
 import ru.practicum.event.dto.*;
 import ru.practicum.event.mapper.EventMapper;
 import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventListingFilter;
 import ru.practicum.event.model.EventSort;
+import ru.practicum.event.model.EventShortView;
 import ru.practicum.event.model.EventState;
+import ru.practicum.event.repository.EventListingRepository;
 import ru.practicum.event.repository.EventRepository;
 import ru.practicum.exception.BadRequestException;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.exception.ValidationException;
+import ru.practicum.pagination.CursorSlice;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 import ru.practicum.user.model.User;
 import ru.practicum.user.repository.UserRepository;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.springframework.data.jpa.domain.Specification.where;
@@ -45,8 +48,12 @@ public class EventServiceImpl implements EventService {
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final EventMapper eventMapper;
-    private final StatsClient statsClient;
-    private final ObjectMapper objectMapper;
+    private final EventViewsCache eventViewsCache;
+    private final Optional<EventViewsSynchronizer> eventViewsSynchronizer;
+    private final StatsHitRecorder statsHitRecorder;
+    private final EventTitleIndex eventTitleIndex;
+    private final EventListingRepository eventListingRepository;
+    private final EventListingProjector eventListingProjector;
 
     @Transactional
     @Override
@@ -87,7 +94,10 @@ public class EventServiceImpl implements EventService {
             }
         }
 
-        return eventMapper.convertToEventFullDto(eventRepository.save(event));
+        Event saved = eventRepository.save(event);
+        eventTitleIndex.update(saved);
+        eventListingProjector.eventChanged(saved.getId());
+        return eventMapper.convertToEventFullDto(saved);
     }
 
     @Transactional
@@ -124,81 +134,107 @@ public class EventServiceImpl implements EventService {
                     break;
             }
         }
-        return eventMapper.convertToEventFullDto(eventRepository.save(event));
+        Event saved = eventRepository.save(event);
+        eventTitleIndex.update(saved);
+        eventListingProjector.eventChanged(saved.getId());
+        return eventMapper.convertToEventFullDto(saved);
     }
 
     @Override
-    public List<EventShortDto> getUserEvents(Long userId, int from, int size) {
-        Pageable page = PageRequest.of(from / size, size, Sort.by("id").descending());
+    public CursorSlice<EventShortDto> getUserEvents(Long userId, int from, int size, String cursor) {
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+        Pageable page = new OffsetPageRequest(after == null ? from : 0, size, Sort.by("id").descending());
 
-        return eventRepository.findAllByInitiatorId(userId, page).stream()
-                .map(eventMapper::convertToEventShortDto)
-                .collect(Collectors.toList());
+        Slice<EventShortView> events = eventRepository.findShortSlice(
+                where(hasUsers(List.of(userId))).and(beforeId(after)), page);
+        return CursorSlice.of(events, eventMapper::convertToEventShortDto, event -> PageCursor.of(event.getId()));
     }
 
     @Override
-    public List<EventShortDto> getAll(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
-                                      LocalDateTime rangeEnd, Boolean onlyAvailable, int from, int size,
-                                      EventSort sort, HttpServletRequest httpServletRequest) {
+    public CursorSlice<EventShortDto> getAll(String text, List<Long> categories, Boolean paid,
+                                             LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
+                                             int from, int size, String cursor, EventSort sort,
+                                             HttpServletRequest httpServletRequest) {
 
         if ((rangeStart != null && rangeEnd != null) && (rangeStart.isAfter(rangeEnd) || rangeStart.isEqual(rangeEnd))) {
             throw new BadRequestException("Дата окончания не может быть раньше даты начала");
         }
 
-        Pageable page;
+        EventListingFilter filter = EventListingFilter.builder()
+                .text(text)
+                .categories(categories)
+                .paid(paid)
+                .rangeStart(rangeStart)
+                .rangeEnd(rangeEnd)
+                .onlyAvailable(onlyAvailable)
+                .build();
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+        // С курсором страница начинается сразу после него, from не учитывается
+        long offset = after == null ? from : 0;
+
+        Function<EventShortView, PageCursor> cursorOf;
         if (sort == EventSort.VIEWS) {
-            page = PageRequest.of(from / size, size, Sort.by("views"));
+            // Ранжировать можно только по сохранённым просмотрам, а их обновляет синхронизатор.
+            // С ним же и в ответе остаются сохранённые просмотры, поэтому порядок совпадает с показанным
+            if (eventViewsSynchronizer.isEmpty()) {
+                throw new BadRequestException("Сортировка по просмотрам недоступна: выключена синхронизация " +
+                        "просмотров (stats-server.views-sync.enabled)");
+            }
+            cursorOf = event -> PageCursor.of(event.getViews(), event.getId());
+        } else if (sort == EventSort.RELEVANCE && text != null && !text.isBlank()) {
+            // Ранг вычисляется при каждом запросе, продолжить по нему нельзя: такой список листается только через from
+            if (after != null) {
+                throw new BadRequestException("Курсор не поддерживается для sort=RELEVANCE");
+            }
+            cursorOf = null;
         } else {
-            page = PageRequest.of(from / size, size, Sort.by("eventDate"));
+            cursorOf = event -> PageCursor.of(event.getEventDate(), event.getId());
         }
 
-        Page<Event> eventsPage = eventRepository.findAll(where(hasText(text))
-                .and(hasCategories(categories))
-                .and(hasPaid(paid))
-                .and(hasRangeStart(rangeStart))
-                .and(hasRangeEnd(rangeEnd))
-                .and(hasAvailable(onlyAvailable)), page);
+        Slice<EventShortView> events = eventListingRepository.find(filter, sort, after, offset, size);
+        List<EventShortView> content = events.getContent();
+        // Курсор берётся до подстановки просмотров, по тем значениям, по которым шла сортировка
+        String nextCursor = cursorOf != null && events.hasNext()
+                ? cursorOf.apply(content.get(content.size() - 1)).encode()
+                : null;
 
         addStatsClient(httpServletRequest);
-        Map<Long, Long> viewStatsMap = getViews(eventsPage.toList());
-        for (Event event : eventsPage.toList()) {
-            Long viewsFromStatistic = viewStatsMap.getOrDefault(event.getId(), 0L);
-            event.setViews(viewsFromStatistic);
+        if (eventViewsSynchronizer.isEmpty() && !content.isEmpty()) {
+            Map<Long, LocalDateTime> createdOn = new HashMap<>(content.size() * 2);
+            for (EventShortView event : content) {
+                createdOn.put(event.getId(), event.getCreatedOn());
+            }
+            EventViews views = getViews(createdOn, httpServletRequest);
+            for (EventShortView event : content) {
+                event.setViews(views.get(event.getId()));
+            }
         }
 
-        return eventsPage.stream()
-                .filter(event -> event.getPublishedOn() != null)
+        return new CursorSlice<>(content.stream()
                 .map(eventMapper::convertToEventShortDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), nextCursor);
     }
 
     @Override
-    public List<EventFullDto> getAdminEvents(List<Long> users, List<EventState> states, List<Long> categories,
-                                             LocalDateTime rangeStart, LocalDateTime rangeEnd,
-                                             int from, int size) {
+    public CursorSlice<EventFullDto> getAdminEvents(List<Long> users, List<EventState> states, List<Long> categories,
+                                                    LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                    int from, int size, String cursor) {
         if ((rangeStart != null && rangeEnd != null) && (rangeEnd.isBefore(rangeStart))) {
             throw new BadRequestException("Дата окончания не может быть раньше даты начала");
         }
 
-        Pageable page = PageRequest.of(from / size, size, Sort.unsorted());
+        PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+        Pageable page = new OffsetPageRequest(after == null ? from : 0, size, Sort.by("id"));
 
-        if (users != null || states != null || categories != null || rangeStart != null || rangeEnd != null) {
+        Slice<Event> events = eventRepository.findSlice(where(hasUsers(users))
+                        .and(hasStates(states))
+                        .and(hasCategories(categories))
+                        .and(hasRangeStart(rangeStart))
+                        .and(hasRangeEnd(rangeEnd))
+                        .and(afterId(after)),
+                page);
 
-            Page<Event> events = eventRepository.findAll(where(hasUsers(users))
-                            .and(hasStates(states))
-                            .and(hasCategories(categories))
-                            .and(hasRangeStart(rangeStart))
-                            .and(hasRangeEnd(rangeEnd)),
-                    page);
-
-            return events.stream()
-                    .map(eventMapper::convertToEventFullDto)
-                    .collect(Collectors.toList());
-        } else {
-            return eventRepository.findAll(page).stream()
-                    .map(eventMapper::convertToEventFullDto)
-                    .collect(Collectors.toList());
-        }
+        return CursorSlice.of(events, eventMapper::convertToEventFullDto, event -> PageCursor.of(event.getId()));
     }
 
     @Override
@@ -210,15 +246,30 @@ public class EventServiceImpl implements EventService {
 
     @Override
     public EventFullDto get(Long eventId, HttpServletRequest httpServletRequest) {
-        Event event = eventRepository.findByIdAndStateIs(eventId, EventState.PUBLISHED)
+        EventFullDto event = eventListingRepository.findById(eventId)
                 .orElseThrow(() -> new NotFoundException("Event с данным id не найден"));
 
         addStatsClient(httpServletRequest);
-        Map<Long, Long> viewsForEvent = getViews(List.of(event));
-        Long views = viewsForEvent.getOrDefault(eventId, 0L);
-        event.setViews(views);
+        if (eventViewsSynchronizer.isEmpty()) {
+            event.setViews(getViews(Map.of(eventId, event.getCreatedOn()), httpServletRequest).get(eventId));
+        }
 
-        return eventMapper.convertToEventFullDto(event);
+        return event;
+    }
+
+    @Override
+    public List<EventSuggestionDto> suggest(String prefix, int size) {
+        return eventTitleIndex.suggest(prefix, size);
+    }
+
+    /**
+     * Просмотры из статистики через кэш. При включённой синхронизации не нужен: они уже лежат в events.views
+     * и event_listing.views.
+     */
+    private EventViews getViews(Map<Long, LocalDateTime> createdOn, HttpServletRequest request) {
+        EventViews views = eventViewsCache.getViews(createdOn);
+        StaleViewsAdvice.markStale(request, views);
+        return views;
     }
 
     private void addStatsClient(HttpServletRequest request) {
@@ -229,37 +280,7 @@ public class EventServiceImpl implements EventService {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        statsClient.create(endpointHitDto);
-    }
-
-    private Map<Long, Long> getViews(List<Event> events) {
-        List<String> uris = events.stream()
-                .map(event -> String.format("/events/%s", event.getId()))
-                .collect(Collectors.toList());
-
-        List<LocalDateTime> start = events.stream()
-                .map(Event::getCreatedOn)
-                .collect(Collectors.toList());
-        LocalDateTime earliestDate = start.stream()
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-        Map<Long, Long> viewStats = new HashMap<>();
-
-        if (earliestDate != null) {
-            ResponseEntity<Object> response = statsClient.getStatistic(earliestDate, LocalDateTime.now(),
-                    uris, true);
-
-            List<ViewStatsDto> viewStatsList = objectMapper.convertValue(response.getBody(), new TypeReference<>() {
-            });
-
-            viewStats = viewStatsList.stream()
-                    .filter(statsDto -> statsDto.getUri().startsWith("/events/"))
-                    .collect(Collectors.toMap(
-                            statsDto -> Long.parseLong(statsDto.getUri().substring("/events/".length())),
-                            ViewStatsDto::getHits
-                    ));
-        }
-        return viewStats;
+        statsHitRecorder.record(endpointHitDto);
     }
 
     private Event getEventById(Long eventId) {
@@ -314,6 +335,10 @@ public class EventServiceImpl implements EventService {
         if (updateEventAdminRequest.getPaid() != null) {
             event.setPaid(updateEventAdminRequest.getPaid());
         }
+
+        if (updateEventAdminRequest.getHighDemand() != null) {
+            event.setHighDemand(updateEventAdminRequest.getHighDemand());
+        }
     }
 
     private void setEventFields(Event event, NewEventDto newEventDto, User initiator, Category category) {
@@ -0,0 +1,194 @@
+package ru.practicum.event.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.event.dto.EventSuggestionDto;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventState;
+import ru.practicum.event.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Префиксный индекс названий опубликованных событий для подсказок при вводе.
+ * <p>
+ * Ключи — нормализованные названия с id фиксированной длины на конце, упорядоченные в skip-list:
+ * подсказки по префиксу — это начало диапазона [prefix, prefix + '\uffff'), то есть по алфавиту,
+ * а при одинаковых названиях по id. Поиск занимает O(log n + size) без обращения к базе.
+ * Индекс строится при старте и обновляется после фиксации транзакций, меняющих события.
+ * <p>
+ * Память ограничена оценкой {@code events.suggest.max-bytes}: при превышении вытесняются названия
+ * самых старых событий (с меньшим id). Замена названия не видна читателям наполовину: изменения идут
+ * под блокировкой записи, а поиск перечитывается, если застал изменение.
+ */
+@Slf4j
+@Component
+public class EventTitleIndex {
+
+    private static final char ID_SEPARATOR = '\u0000';
+
+    /**
+     * Узлы skip-list и индекса по id, заголовки строк и массивов, DTO и упакованный id на одно название.
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 200;
+
+    private final EventRepository eventRepository;
+    private final long maxBytes;
+
+    private final NavigableMap<String, EventSuggestionDto> titles = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, String> keys = new ConcurrentSkipListMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final StampedLock lock = new StampedLock();
+
+    public EventTitleIndex(EventRepository eventRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${events.suggest.max-bytes:67108864}") long maxBytes) {
+        this.eventRepository = eventRepository;
+        this.maxBytes = maxBytes;
+        Gauge.builder("event.suggest.size", keys, Map::size)
+                .description("Число названий в индексе подсказок")
+                .register(meterRegistry);
+        Gauge.builder("event.suggest.bytes", bytes, AtomicLong::get)
+                .description("Оценка памяти индекса подсказок")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = eventRepository.findIdAndTitleByState(EventState.PUBLISHED);
+        long stamp = lock.writeLock();
+        try {
+            titles.clear();
+            keys.clear();
+            bytes.set(0);
+            for (Object[] row : rows) {
+                put((Long) row[0], (String) row[1]);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Индекс подсказок построен: {} названий, ~{} байт", keys.size(), bytes.get());
+    }
+
+    public List<EventSuggestionDto> suggest(String prefix, int size) {
+        String from = normalize(prefix);
+        if (from.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            List<EventSuggestionDto> suggestions = collect(from, size);
+            if (lock.validate(stamp)) {
+                return suggestions;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return collect(from, size);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Приводит индекс в соответствие с событием после фиксации текущей транзакции:
+     * опубликованное событие индексируется под текущим названием, остальные удаляются.
+     */
+    public void update(Event event) {
+        Long eventId = event.getId();
+        String title = event.getState() == EventState.PUBLISHED ? event.getTitle() : null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(eventId, title);
+                }
+            });
+        } else {
+            apply(eventId, title);
+        }
+    }
+
+    long estimatedBytes() {
+        return bytes.get();
+    }
+
+    private List<EventSuggestionDto> collect(String from, int size) {
+        List<EventSuggestionDto> suggestions = new ArrayList<>(size);
+        for (EventSuggestionDto suggestion : titles.subMap(from, from + '\uffff').values()) {
+            if (suggestions.size() == size) {
+                break;
+            }
+            suggestions.add(suggestion);
+        }
+        return suggestions;
+    }
+
+    private void apply(Long eventId, String title) {
+        long stamp = lock.writeLock();
+        try {
+            remove(eventId);
+            put(eventId, title);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void put(Long eventId, String title) {
+        if (title == null) {
+            return;
+        }
+        String key = normalize(title) + ID_SEPARATOR + encodeId(eventId);
+        titles.put(key, new EventSuggestionDto(eventId, title));
+        keys.put(eventId, key);
+        bytes.addAndGet(estimate(key, title));
+        while (bytes.get() > maxBytes && !keys.isEmpty()) {
+            remove(keys.firstKey());
+        }
+    }
+
+    private void remove(Long eventId) {
+        String key = keys.remove(eventId);
+        if (key != null) {
+            EventSuggestionDto removed = titles.remove(key);
+            bytes.addAndGet(-estimate(key, removed.getTitle()));
+        }
+    }
+
+    /**
+     * Строки считаются по два байта на символ: кириллица не помещается в компактное представление Latin-1.
+     */
+    private static long estimate(String key, String title) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (key.length() + title.length());
+    }
+
+    /**
+     * Id в четырёх символах по 16 бит, чтобы одинаковые названия шли по возрастанию id, а не по его записи.
+     */
+    private static String encodeId(long eventId) {
+        return new String(new char[]{
+                (char) (eventId >>> 48), (char) (eventId >>> 32), (char) (eventId >>> 16), (char) eventId});
+    }
+
+    private static String normalize(String text) {
+        return text.strip()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT)
+                .replace('ё', 'е');
+    }
+}
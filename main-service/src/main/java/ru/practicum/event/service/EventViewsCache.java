@@ -0,0 +1,156 @@
+package ru.practicum.event.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.EventViews;
+import ru.practicum.StatsRequestCoalescer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш просмотров событий перед сервером статистики. Отсутствующие в кэше события запрашиваются одним вызовом,
+ * а прочитанные записи старше refresh-after-write обновляются в фоне тоже одним вызовом на запрос,
+ * не дожидаясь истечения срока. Одновременные промахи по одному событию объединяются {@link StatsRequestCoalescer}.
+ * Если сервер статистики недоступен, отдаются последние известные просмотры (или 0) с признаком stale.
+ */
+@Slf4j
+@Component
+public class EventViewsCache {
+
+    private final StatsRequestCoalescer statsRequestCoalescer;
+    private final Cache<Long, CachedViews> cache;
+    private final Cache<Long, CachedViews> lastKnown;
+    private final Counter fallbackCounter;
+    private final long refreshAfterWriteNanos;
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+
+    public EventViewsCache(StatsRequestCoalescer statsRequestCoalescer,
+                           MeterRegistry meterRegistry,
+                           @Value("${stats-server.views-cache.max-size:100000}") long maxSize,
+                           @Value("${stats-server.views-cache.expire-after-write-ms:60000}") long expireAfterWriteMs,
+                           @Value("${stats-server.views-cache.refresh-after-write-ms:10000}") long refreshAfterWriteMs) {
+        this.statsRequestCoalescer = statsRequestCoalescer;
+        this.refreshAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(refreshAfterWriteMs);
+        // Обычный Cache вместо LoadingCache: загрузка по одному ключу невозможна без даты создания события,
+        // а refreshAfterWrite в Caffeine перезагружает записи по одной
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "event.views");
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+        this.fallbackCounter = Counter.builder("stats.client.fallback")
+                .description("Ответы с последними известными просмотрами из-за недоступности статистики")
+                .tag("operation", "views")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает просмотры событий по их id и дате создания, с которой считается статистика.
+     */
+    public EventViews getViews(Map<Long, LocalDateTime> createdOn) {
+        try {
+            Map<Long, CachedViews> cached = cache.getAll(createdOn.keySet(),
+                    missing -> fetch(select(createdOn, missing)));
+            EventViews views = new EventViews(cached.size());
+            cached.forEach((eventId, value) -> views.add(eventId, value.views));
+            refreshStale(cached);
+            return views;
+        } catch (RuntimeException e) {
+            log.warn("Просмотры отданы из последних известных значений: {}", e.getMessage());
+            fallbackCounter.increment();
+            return getLastKnown(createdOn.keySet());
+        }
+    }
+
+    /**
+     * Перезагружает в фоне одним запросом записи, прочитанные позже refresh-after-write после загрузки.
+     * Запись, которая уже обновляется, повторно не запрашивается.
+     */
+    private void refreshStale(Map<Long, CachedViews> cached) {
+        long now = System.nanoTime();
+        Map<Long, LocalDateTime> stale = new HashMap<>();
+        cached.forEach((eventId, value) -> {
+            if (now - value.loadedAt >= refreshAfterWriteNanos && refreshing.add(eventId)) {
+                stale.put(eventId, value.since);
+            }
+        });
+        if (stale.isEmpty()) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                cache.putAll(fetch(stale));
+            } catch (RuntimeException e) {
+                log.debug("Не удалось обновить просмотры {} событий: {}", stale.size(), e.getMessage());
+            } finally {
+                refreshing.removeAll(stale.keySet());
+            }
+        });
+    }
+
+    private EventViews getLastKnown(Set<Long> eventIds) {
+        EventViews views = new EventViews(eventIds.size());
+        for (Long eventId : eventIds) {
+            CachedViews value = cache.getIfPresent(eventId);
+            if (value == null) {
+                value = lastKnown.getIfPresent(eventId);
+            }
+            if (value != null) {
+                views.add(eventId, value.views);
+            }
+        }
+        views.markStale();
+        return views;
+    }
+
+    private Map<Long, CachedViews> fetch(Map<Long, LocalDateTime> createdOn) {
+        LocalDateTime earliest = createdOn.values().stream()
+                .min(LocalDateTime::compareTo)
+                .orElseThrow();
+        EventViews views = statsRequestCoalescer.getEventViews(earliest, createdOn.keySet(), true);
+
+        long loadedAt = System.nanoTime();
+        Map<Long, CachedViews> loaded = new HashMap<>(createdOn.size() * 2);
+        createdOn.forEach((eventId, since) ->
+                loaded.put(eventId, new CachedViews(views.get(eventId), since, loadedAt)));
+        lastKnown.putAll(loaded);
+        return loaded;
+    }
+
+    private static Map<Long, LocalDateTime> select(Map<Long, LocalDateTime> createdOn, Iterable<? extends Long> eventIds) {
+        Map<Long, LocalDateTime> selected = new HashMap<>();
+        for (Long eventId : eventIds) {
+            selected.put(eventId, createdOn.get(eventId));
+        }
+        return selected;
+    }
+
+    private static class CachedViews {
+        private final long views;
+        private final LocalDateTime since;
+        private final long loadedAt;
+
+        CachedViews(long views, LocalDateTime since, long loadedAt) {
+            this.views = views;
+            this.since = since;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
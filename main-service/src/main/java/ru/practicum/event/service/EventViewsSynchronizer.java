@@ -0,0 +1,125 @@
+package ru.practicum.event.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.StatsClient;
+import ru.practicum.event.repository.EventViewsRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Поддерживает events.views в актуальном состоянии, чтобы чтения не агрегировали всю историю хитов.
+ * <p>
+ * Раз в {@code stats-server.views-sync.interval-ms} запрашивает у сервера статистики события с хитами
+ * после сохранённой отметки и пересчитывает только их. Уникальные просмотры за разные интервалы не складываются,
+ * поэтому для изменившихся событий запрашивается итог с момента создания, а не дельта. Пересчёт идемпотентен:
+ * интервал берётся с перекрытием на хиты, доставленные с опозданием, а при сбое отметка не сдвигается.
+ * <p>
+ * Итог с момента создания по умолчанию оценивается сервером по HyperLogLog-скетчам
+ * ({@code stats-server.views-sync.approximate}), а не COUNT(DISTINCT ip) по всей истории события.
+ * Без синхронизатора недоступна сортировка событий по просмотрам, поэтому он включён в application.properties.
+ * Просмотры в ответах при этом отстают от статистики до {@code interval-ms}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats-server.views-sync.enabled", havingValue = "true")
+public class EventViewsSynchronizer {
+
+    private static final String WATERMARK = "event-views";
+
+    private final StatsClient statsClient;
+    private final EventViewsRepository eventViewsRepository;
+    private final int batchSize;
+    private final Duration overlap;
+    private final boolean approximate;
+
+    private final AtomicReference<LocalDateTime> syncedUpTo = new AtomicReference<>();
+
+    public EventViewsSynchronizer(StatsClient statsClient,
+                                  EventViewsRepository eventViewsRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${stats-server.views-sync.batch-size:500}") int batchSize,
+                                  @Value("${stats-server.views-sync.overlap-ms:30000}") long overlapMs,
+                                  @Value("${stats-server.views-sync.approximate:true}") boolean approximate) {
+        this.statsClient = statsClient;
+        this.eventViewsRepository = eventViewsRepository;
+        this.batchSize = batchSize;
+        this.overlap = Duration.ofMillis(overlapMs);
+        this.approximate = approximate;
+        Gauge.builder("event.views.sync.lag", syncedUpTo, watermark -> watermark.get() == null ? Double.NaN
+                        : Duration.between(watermark.get(), LocalDateTime.now()).toSeconds())
+                .description("Отставание events.views от статистики, с")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${stats-server.views-sync.interval-ms:5000}")
+    public void synchronize() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime watermark = eventViewsRepository.findWatermark(WATERMARK)
+                .map(value -> value.minus(overlap))
+                .or(eventViewsRepository::findEarliestCreatedOn)
+                .orElse(now);
+
+        try {
+            long[] changed = statsClient.getEventHits(watermark, now).eventIds();
+            List<CompletableFuture<Map<Long, Long>>> refreshes = new ArrayList<>();
+            for (int from = 0; from < changed.length; from += batchSize) {
+                List<Long> batch = new ArrayList<>(Math.min(batchSize, changed.length - from));
+                for (int i = from; i < Math.min(from + batchSize, changed.length); i++) {
+                    batch.add(changed[i]);
+                }
+                refreshes.add(refresh(batch, now));
+            }
+            CompletableFuture.allOf(refreshes.toArray(CompletableFuture[]::new)).join();
+            // Запись в базу остаётся в потоке планировщика, а не в потоках HTTP-клиента
+            refreshes.forEach(refresh -> eventViewsRepository.updateViews(refresh.join()));
+            eventViewsRepository.saveWatermark(WATERMARK, now);
+            syncedUpTo.set(now);
+            if (changed.length > 0) {
+                log.debug("Просмотры пересчитаны для {} событий до {}", changed.length, now);
+            }
+        } catch (CompletionException e) {
+            log.warn("Не удалось синхронизировать просмотры событий: {}", e.getCause().getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось синхронизировать просмотры событий: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Запрашивает просмотры пачки через {@link StatsClient#getEventViewsAsync}: при stats-server.transport=async
+     * запросы всех пачек идут к серверу статистики одновременно, а не по очереди.
+     */
+    private CompletableFuture<Map<Long, Long>> refresh(List<Long> eventIds, LocalDateTime now) {
+        Map<Long, LocalDateTime> createdOn = eventViewsRepository.findCreatedOn(eventIds);
+        if (createdOn.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        LocalDateTime earliest = createdOn.values().stream()
+                .min(LocalDateTime::compareTo)
+                .orElseThrow();
+
+        return statsClient.getEventViewsAsync(earliest, now, createdOn.keySet(), true, approximate)
+                .thenApply(views -> {
+                    Map<Long, Long> updated = new HashMap<>(createdOn.size() * 2);
+                    for (Long eventId : createdOn.keySet()) {
+                        updated.put(eventId, views.get(eventId));
+                    }
+                    return updated;
+                });
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.event.service;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import ru.practicum.EventViews;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Помечает заголовком Warning ответы, в которых просмотры взяты из последних известных значений.
+ */
+@RestControllerAdvice
+public class StaleViewsAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String STALE_VIEWS_ATTRIBUTE = StaleViewsAdvice.class.getName() + ".stale";
+    private static final String STALE_WARNING = "110 - \"Views are stale\"";
+
+    public static void markStale(HttpServletRequest request, EventViews views) {
+        if (views.isStale()) {
+            request.setAttribute(STALE_VIEWS_ATTRIBUTE, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest
+                && ((ServletServerHttpRequest) request).getServletRequest().getAttribute(STALE_VIEWS_ATTRIBUTE) != null) {
+            response.getHeaders().add(HttpHeaders.WARNING, STALE_WARNING);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.pagination;
+
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Часть списка без подсчёта общего числа элементов и курсор следующей части, если она есть.
+ * Курсор отдаётся в заголовке {@value #NEXT_CURSOR_HEADER}, тело ответа остаётся прежним массивом.
+ */
+@Getter
+public class CursorSlice<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorSlice(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public static <E, T> CursorSlice<T> of(Slice<E> slice, Function<E, T> mapper, Function<E, PageCursor> cursor) {
+        List<E> content = slice.getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? cursor.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorSlice<>(content.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+}
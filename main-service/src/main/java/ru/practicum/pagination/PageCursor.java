@@ -0,0 +1,69 @@
+package ru.practicum.pagination;
+
+import lombok.Getter;
+import ru.practicum.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция последнего отданного элемента: значение ключа сортировки и id. Клиенту передаётся
+ * непрозрачной строкой, следующая страница читается условием «после этой позиции» без OFFSET.
+ */
+@Getter
+public class PageCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final String key;
+    private final long id;
+
+    private PageCursor(String key, long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static PageCursor of(long id) {
+        return new PageCursor("", id);
+    }
+
+    public static PageCursor of(Object key, long id) {
+        return new PageCursor(String.valueOf(key), id);
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException();
+            }
+            return new PageCursor(decoded.substring(0, separator), Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Некорректный курсор страницы: " + cursor);
+        }
+    }
+
+    public long getLongKey() {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Курсор страницы не подходит к сортировке");
+        }
+    }
+
+    public LocalDateTime getDateTimeKey() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Курсор страницы не подходит к сортировке");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,8 +2,10 @@ package ru.practicum.request.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.request.dto.ParticipationRequestDto;
+import ru.practicum.request.model.ParticipationRequestStatus;
 import ru.practicum.request.service.ParticipationRequestService;
 
 import java.util.List;
@@ -14,10 +16,24 @@ import java.util.List;
 public class ParticipationRequestController {
     private final ParticipationRequestService participationRequestService;
 
+    /**
+     * Заявка на событие в режиме высокого спроса возвращается со статусом QUEUED и кодом 202,
+     * итог можно узнать через GET /users/{userId}/requests/status.
+     */
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public ParticipationRequestDto createRequest(@RequestParam Long eventId, @PathVariable Long userId) {
-        return participationRequestService.create(userId, eventId);
+    public ResponseEntity<ParticipationRequestDto> createRequest(@RequestParam Long eventId,
+                                                                 @PathVariable Long userId) {
+        ParticipationRequestDto request = participationRequestService.create(userId, eventId);
+        return ResponseEntity
+                .status(request.getStatus() == ParticipationRequestStatus.QUEUED
+                        ? HttpStatus.ACCEPTED
+                        : HttpStatus.CREATED)
+                .body(request);
+    }
+
+    @GetMapping("/status")
+    public ParticipationRequestDto getRequestStatus(@RequestParam Long eventId, @PathVariable Long userId) {
+        return participationRequestService.getRequestStatus(userId, eventId);
     }
 
     @PatchMapping("/{requestId}/cancel")
@@ -27,8 +43,11 @@ public class ParticipationRequestController {
 
     @GetMapping
     @ResponseStatus(code = HttpStatus.OK)
-    public List<ParticipationRequestDto> getRequestByUserId(@PathVariable Long userId) {
-        return participationRequestService.getRequestByUserId(userId);
+    public ResponseEntity<List<ParticipationRequestDto>> getRequestByUserId(@PathVariable Long userId,
+                                                                            @RequestParam(defaultValue = "0") int from,
+                                                                            @RequestParam(required = false) Integer size,
+                                                                            @RequestParam(required = false) String cursor) {
+        return participationRequestService.getRequestByUserId(userId, from, size, cursor).toResponseEntity();
     }
 
 
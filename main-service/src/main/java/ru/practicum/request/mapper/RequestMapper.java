@@ -3,6 +3,7 @@ package ru.practicum.request.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.request.dto.ParticipationRequestDto;
+import ru.practicum.request.model.Admission;
 import ru.practicum.request.model.ParticipationRequest;
 
 @Mapper(componentModel = "spring")
@@ -11,4 +12,9 @@ public interface RequestMapper {
     @Mapping(target = "event", source = "event.id")
     @Mapping(target = "requester", source = "requester.id")
     ParticipationRequestDto convertToParticipationRequestDto(ParticipationRequest participationRequest);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "event", source = "eventId")
+    @Mapping(target = "requester", source = "requesterId")
+    ParticipationRequestDto convertToParticipationRequestDto(Admission admission);
 }
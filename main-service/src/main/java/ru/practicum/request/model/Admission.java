@@ -0,0 +1,39 @@
+package ru.practicum.request.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Заявка на событие в режиме высокого спроса, ожидающая записи в базу.
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class Admission {
+
+    private final Long eventId;
+
+    private final Long requesterId;
+
+    private final LocalDateTime created;
+
+    /**
+     * Меняется только после фиксации транзакции, записавшей заявку: до этого опрос статуса видит QUEUED.
+     */
+    private volatile ParticipationRequestStatus status = ParticipationRequestStatus.QUEUED;
+
+    public Key getKey() {
+        return new Key(eventId, requesterId);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    public static class Key {
+        private final long eventId;
+        private final long requesterId;
+    }
+}
@@ -4,5 +4,9 @@ public enum ParticipationRequestStatus {
     PENDING,
     CANCELED,
     CONFIRMED,
-    REJECTED
+    REJECTED,
+    /**
+     * Заявка принята в очередь события и ещё не записана в базу.
+     */
+    QUEUED
 }
@@ -0,0 +1,45 @@
+package ru.practicum.request.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.request.model.Admission;
+import ru.practicum.request.model.ParticipationRequestStatus;
+
+import java.util.List;
+
+/**
+ * Пакетная запись заявок из очереди события в requests.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AdmissionRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Вставляет заявки со статусами statuses, пропуская те, для которых заявка пользователя на событие уже есть.
+     * Возвращает по каждой заявке, была ли она вставлена.
+     */
+    public boolean[] insertAll(List<Admission> admissions, List<ParticipationRequestStatus> statuses) {
+        SqlParameterSource[] batch = new SqlParameterSource[admissions.size()];
+        for (int i = 0; i < batch.length; i++) {
+            Admission admission = admissions.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("created", admission.getCreated())
+                    .addValue("eventId", admission.getEventId())
+                    .addValue("requesterId", admission.getRequesterId())
+                    .addValue("status", statuses.get(i).name());
+        }
+        int[] counts = jdbcTemplate.batchUpdate("INSERT INTO requests (created, event_id, requester_id, status) " +
+                "VALUES (:created, :eventId, :requesterId, :status) " +
+                "ON CONFLICT (requester_id, event_id) DO NOTHING", batch);
+        boolean[] inserted = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            inserted[i] = counts[i] != 0;
+        }
+        return inserted;
+    }
+}
@@ -1,5 +1,7 @@
 package ru.practicum.request.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.practicum.request.model.ParticipationRequest;
@@ -12,12 +14,19 @@ public interface ParticipationRequestRepository extends JpaRepository<Participat
 
     List<ParticipationRequest> findAllByIdInAndAndEventId(Iterable<Long> ids, Long eventId);
 
-    List<ParticipationRequest> findAllByRequesterId(Long userId);
+    Slice<ParticipationRequest> findAllByRequesterId(Long userId, Pageable pageable);
 
-    List<ParticipationRequest> findAllByEventIdAndEventInitiatorId(Long eventId, Long userId);
+    Slice<ParticipationRequest> findAllByRequesterIdAndIdGreaterThan(Long userId, Long id, Pageable pageable);
+
+    Slice<ParticipationRequest> findAllByEventIdAndEventInitiatorId(Long eventId, Long userId, Pageable pageable);
+
+    Slice<ParticipationRequest> findAllByEventIdAndEventInitiatorIdAndIdGreaterThan(Long eventId, Long userId, Long id,
+                                                                                   Pageable pageable);
 
     Boolean existsByRequesterIdAndEventId(Long userId, Long eventId);
 
     Optional<ParticipationRequest> findByIdAndRequesterId(Long requestId, Long userId);
 
+    Optional<ParticipationRequest> findByRequesterIdAndEventId(Long userId, Long eventId);
+
 }
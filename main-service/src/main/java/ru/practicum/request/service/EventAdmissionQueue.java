@@ -0,0 +1,313 @@
+package ru.practicum.request.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.repository.EventRepository;
+import ru.practicum.event.repository.EventSeatRepository;
+import ru.practicum.event.service.EventListingProjector;
+import ru.practicum.exception.NotFoundException;
+import ru.practicum.exception.ValidationException;
+import ru.practicum.request.model.Admission;
+import ru.practicum.request.model.ParticipationRequestStatus;
+import ru.practicum.request.repository.AdmissionRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очереди заявок на события в режиме высокого спроса. Заявка сразу возвращается со статусом QUEUED,
+ * а единственный фоновый поток разбирает очереди пачками: резервирует места одним UPDATE события
+ * и записывает все заявки пачки одним пакетным INSERT. Так запросы пользователей не конкурируют
+ * за строку события, её меняет только этот поток.
+ * <p>
+ * Разборщик обходит события по кругу, по одной пачке за раз, и берёт за проход не больше
+ * {@code events.admission.max-batches-per-pass} пачек каждого события. Событие, с которого начинается проход,
+ * каждый раз сдвигается: длинная очередь одного события не задерживает остальные.
+ * <p>
+ * Заявка остаётся в очереди и видна при опросе статуса, пока её судьба не записана в базу; статус
+ * меняется только после фиксации транзакции. Если пачку
+ * не удалось записать из-за недоступности базы или конфликта блокировок, очередь события повторяется
+ * позже с растущей паузой. При любой другой ошибке пачка записывается по одной заявке, и отбрасываются
+ * только те, которые не удаётся записать и по одной.
+ * <p>
+ * Очереди живут в памяти: заявки, не успевшие записаться до остановки сервиса, теряются.
+ */
+@Slf4j
+@Component
+public class EventAdmissionQueue {
+
+    private final EventRepository eventRepository;
+    private final EventSeatRepository eventSeatRepository;
+    private final AdmissionRepository admissionRepository;
+    private final EventListingProjector eventListingProjector;
+    private final TransactionTemplate transactionTemplate;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final int maxBatchesPerPass;
+    private final long retryBackoffNanos;
+    private final long maxRetryBackoffNanos;
+
+    private final Map<Long, Queue<Admission>> queues = new ConcurrentHashMap<>();
+    private final Map<Admission.Key, Admission> queued = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+
+    /**
+     * Повторы записи по событиям. Меняется только в drain.
+     */
+    private final Map<Long, Retry> retries = new HashMap<>();
+
+    /**
+     * Номер прохода разборщика, задаёт событие, с которого он начинается. Меняется только в drain.
+     */
+    private int passes;
+
+    private final Counter failedCounter;
+
+    public EventAdmissionQueue(EventRepository eventRepository,
+                               EventSeatRepository eventSeatRepository,
+                               AdmissionRepository admissionRepository,
+                               EventListingProjector eventListingProjector,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${events.admission.queue-capacity:10000}") int queueCapacity,
+                               @Value("${events.admission.batch-size:200}") int batchSize,
+                               @Value("${events.admission.max-batches-per-pass:5}") int maxBatchesPerPass,
+                               @Value("${events.admission.interval-ms:50}") long intervalMs,
+                               @Value("${events.admission.retry-backoff-ms:100}") long retryBackoffMs,
+                               @Value("${events.admission.max-retry-backoff-ms:5000}") long maxRetryBackoffMs) {
+        this.eventRepository = eventRepository;
+        this.eventSeatRepository = eventSeatRepository;
+        this.admissionRepository = admissionRepository;
+        this.eventListingProjector = eventListingProjector;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPass = maxBatchesPerPass;
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(retryBackoffMs);
+        this.maxRetryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxRetryBackoffMs);
+
+        Gauge.builder("event.admission.queue.depth", queued, Map::size)
+                .description("Заявки в очередях событий, ещё не записанные в базу")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("event.admission.failed")
+                .description("Заявки из очереди, отброшенные, потому что их не удалось записать")
+                .register(meterRegistry);
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-admission-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(() -> drain(false), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public Admission enqueue(Long eventId, Long requesterId) {
+        Admission admission = new Admission(eventId, requesterId, LocalDateTime.now());
+        if (queued.putIfAbsent(admission.getKey(), admission) != null) {
+            throw new ValidationException("Попытка добаления дубликата");
+        }
+
+        boolean[] offered = {false};
+        // compute не даёт разборщику удалить опустевшую очередь, пока в неё добавляется заявка
+        queues.compute(eventId, (id, queue) -> {
+            Queue<Admission> target = queue == null ? new ArrayBlockingQueue<>(queueCapacity) : queue;
+            offered[0] = target.offer(admission);
+            return target;
+        });
+        if (!offered[0]) {
+            queued.remove(admission.getKey(), admission);
+            throw new ValidationException("Очередь заявок на событие переполнена, повторите запрос позже");
+        }
+        return admission;
+    }
+
+    public Optional<Admission> findQueued(Long eventId, Long requesterId) {
+        return Optional.ofNullable(queued.get(new Admission.Key(eventId, requesterId)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        drain(true);
+    }
+
+    /**
+     * Записывает очереди пачками, по одной пачке каждого события за круг. force снимает ограничение числа
+     * кругов и пропускает паузу перед повтором.
+     */
+    private synchronized void drain(boolean force) {
+        List<Long> eventIds = new ArrayList<>(queues.keySet());
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        Collections.rotate(eventIds, -(passes++ % eventIds.size()));
+        for (int round = 0; force || round < maxBatchesPerPass; round++) {
+            boolean written = false;
+            for (Long eventId : eventIds) {
+                written |= drainBatch(eventId, force);
+            }
+            if (!written) {
+                break;
+            }
+        }
+        for (Long eventId : eventIds) {
+            queues.computeIfPresent(eventId, (id, current) -> current.isEmpty() ? null : current);
+        }
+    }
+
+    /**
+     * Записывает пачку из начала очереди события. Заявки остаются в очереди до фиксации транзакции и снимаются
+     * с её начала: это безопасно, потому что разбирает очереди только drain. Возвращает false, если писать
+     * нечего, повтор ещё не наступил или пачка записана не целиком.
+     */
+    private boolean drainBatch(Long eventId, boolean force) {
+        Queue<Admission> queue = queues.get(eventId);
+        Retry retry = retries.get(eventId);
+        if (queue == null || queue.isEmpty() || !force && retry != null && System.nanoTime() < retry.retryAt) {
+            return false;
+        }
+        List<Admission> batch = new ArrayList<>(batchSize);
+        Iterator<Admission> iterator = queue.iterator();
+        while (batch.size() < batchSize && iterator.hasNext()) {
+            batch.add(iterator.next());
+        }
+        int settled = write(eventId, batch);
+        for (int i = 0; i < settled; i++) {
+            Admission admission = queue.poll();
+            queued.remove(admission.getKey(), admission);
+        }
+        return settled == batch.size();
+    }
+
+    /**
+     * Возвращает, сколько заявок с начала пачки записано или окончательно отброшено.
+     */
+    private int write(Long eventId, List<Admission> batch) {
+        try {
+            publish(batch, transactionTemplate.execute(status -> admit(eventId, batch)));
+            retries.remove(eventId);
+            return batch.size();
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                retryLater(eventId, batch.size(), e);
+                return 0;
+            }
+            log.warn("Пачка из {} заявок на событие {} записывается по одной: {}", batch.size(), eventId,
+                    e.getMessage());
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Admission admission = batch.get(i);
+            List<Admission> single = List.of(admission);
+            try {
+                publish(single, transactionTemplate.execute(status -> admit(eventId, single)));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    retryLater(eventId, batch.size() - i, e);
+                    return i;
+                }
+                failedCounter.increment();
+                log.error("Заявка пользователя {} на событие {} отброшена: {}", admission.getRequesterId(), eventId,
+                        e.getMessage());
+            }
+        }
+        retries.remove(eventId);
+        return batch.size();
+    }
+
+    /**
+     * Показывает статусы при опросе. Вызывается после фиксации транзакции, записавшей заявки.
+     */
+    private static void publish(List<Admission> batch, List<ParticipationRequestStatus> statuses) {
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setStatus(statuses.get(i));
+        }
+    }
+
+    private void retryLater(Long eventId, int pending, RuntimeException e) {
+        Retry retry = retries.computeIfAbsent(eventId, id -> new Retry());
+        long backoff = Math.min(retryBackoffNanos << Math.min(retry.attempts, 20), maxRetryBackoffNanos);
+        retry.attempts++;
+        retry.retryAt = System.nanoTime() + backoff;
+        log.warn("Не удалось записать {} заявок на событие {}, повтор через {} мс: {}", pending, eventId,
+                TimeUnit.NANOSECONDS.toMillis(backoff), e.getMessage());
+    }
+
+    /**
+     * Ошибки, после которых та же пачка может записаться при повторе: база недоступна, истёк таймаут
+     * или транзакция проиграла в конфликте блокировок.
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    /**
+     * Решает судьбу пачки так же, как синхронное создание заявки: при модерации заявки ждут решения
+     * инициатора, иначе подтверждаются, пока хватает мест, а остальные отклоняются. Возвращает статусы заявок
+     * пачки, не меняя сами заявки.
+     */
+    private List<ParticipationRequestStatus> admit(Long eventId, List<Admission> batch) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new NotFoundException("Event c данным id не найден"));
+
+        List<ParticipationRequestStatus> statuses = new ArrayList<>(batch.size());
+        if (event.getRequestModeration() && event.getParticipantLimit() != 0) {
+            batch.forEach(admission -> statuses.add(ParticipationRequestStatus.PENDING));
+            admissionRepository.insertAll(batch, statuses);
+            return statuses;
+        }
+
+        int seats = eventSeatRepository.reserve(eventId, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            statuses.add(i < seats ? ParticipationRequestStatus.CONFIRMED : ParticipationRequestStatus.REJECTED);
+        }
+        // Заявка могла появиться в обход очереди, пока режим высокого спроса включался: такая строка
+        // не вставляется, а занятое под неё место возвращается
+        boolean[] inserted = admissionRepository.insertAll(batch, statuses);
+        int unused = 0;
+        for (int i = 0; i < seats; i++) {
+            if (!inserted[i]) {
+                unused++;
+            }
+        }
+        if (unused > 0) {
+            eventSeatRepository.release(eventId, unused);
+        }
+        if (seats > unused) {
+            eventListingProjector.eventChanged(eventId);
+        }
+        return statuses;
+    }
+
+    private static class Retry {
+        private int attempts;
+        private long retryAt;
+    }
+}
@@ -2,20 +2,22 @@ package ru.practicum.request.service;
 
 import ru.practicum.event.dto.EventRequestStatusUpdateRequest;
 import ru.practicum.event.dto.EventRequestStatusUpdateResult;
+import ru.practicum.pagination.CursorSlice;
 import ru.practicum.request.dto.ParticipationRequestDto;
 
-import java.util.List;
-
 public interface ParticipationRequestService {
 
     ParticipationRequestDto create(Long userId, Long eventId);
 
     ParticipationRequestDto cancelRequest(Long userId, Long requestId);
 
+    ParticipationRequestDto getRequestStatus(Long userId, Long eventId);
+
     EventRequestStatusUpdateResult updateEventRequests(
             Long userId, Long eventId, EventRequestStatusUpdateRequest eventRequestStatusUpdateRequest);
 
-    List<ParticipationRequestDto> getRequestByUserId(Long userId);
+    CursorSlice<ParticipationRequestDto> getRequestByUserId(Long userId, int from, Integer size, String cursor);
 
-    List<ParticipationRequestDto> getAllParticipationRequestsFromEventByOwner(Long userId, Long eventId);
+    CursorSlice<ParticipationRequestDto> getAllParticipationRequestsFromEventByOwner(Long userId, Long eventId,
+                                                                                    int from, Integer size, String cursor);
 }
@@ -1,6 +1,11 @@
 package ru.practicum.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.event.dto.EventRequestStatusUpdateRequest;
@@ -10,9 +15,15 @@ import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
 import ru.practicum.event.model.EventStatus;
 import ru.practicum.event.repository.EventRepository;
+import ru.practicum.event.repository.EventSeatRepository;
+import ru.practicum.event.service.EventListingProjector;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.exception.ValidationException;
+import ru.practicum.pagination.CursorSlice;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 import ru.practicum.request.dto.ParticipationRequestDto;
+import ru.practicum.request.model.Admission;
 import ru.practicum.request.model.ParticipationRequest;
 import ru.practicum.request.model.ParticipationRequestStatus;
 import ru.practicum.request.repository.ParticipationRequestRepository;
@@ -21,6 +32,7 @@ import ru.practicum.user.repository.UserRepository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,10 +40,17 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ParticipationRequestServiceImpl implements ParticipationRequestService {
 
+    private static final Sort BY_ID = Sort.by("id");
+
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final ParticipationRequestRepository participationRequestRepository;
     private final RequestMapper requestMapper;
+    private final EventListingProjector eventListingProjector;
+    private final EventSeatRepository eventSeatRepository;
+    private final EventAdmissionQueue eventAdmissionQueue;
 
     @Transactional
     @Override
@@ -41,19 +60,30 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
 
         validateNewRequest(event, userId, eventId);
 
+        if (event.isHighDemand()) {
+            return requestMapper.convertToParticipationRequestDto(eventAdmissionQueue.enqueue(eventId, userId));
+        }
+
         ParticipationRequest participationRequest = new ParticipationRequest();
         participationRequest.setRequester(requester);
         participationRequest.setEvent(event);
         participationRequest.setStatus(ParticipationRequestStatus.PENDING);
 
         if (!event.getRequestModeration() || event.getParticipantLimit() == 0) {
+            if (eventSeatRepository.reserve(eventId, 1) == 0) {
+                throw new ValidationException("Превышен лимит участников события");
+            }
             participationRequest.setStatus(ParticipationRequestStatus.CONFIRMED);
-            event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-            eventRepository.save(event);
+            eventListingProjector.eventChanged(eventId);
         }
 
+        try {
+            participationRequest = participationRequestRepository.save(participationRequest);
+        } catch (DataIntegrityViolationException e) {
+            throw new ValidationException("Попытка добаления дубликата");
+        }
 
-        return requestMapper.convertToParticipationRequestDto(participationRequestRepository.save(participationRequest));
+        return requestMapper.convertToParticipationRequestDto(participationRequest);
     }
 
     @Transactional
@@ -66,14 +96,20 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
         }
         request.setStatus(ParticipationRequestStatus.CANCELED);
 
-        Event event = getEventById(request.getEvent().getId());
-        event.setConfirmedRequests(event.getConfirmedRequests() - 1);
-        eventRepository.save(event);
-
-
         return requestMapper.convertToParticipationRequestDto(participationRequestRepository.save(request));
     }
 
+    @Override
+    public ParticipationRequestDto getRequestStatus(Long userId, Long eventId) {
+        Optional<Admission> admission = eventAdmissionQueue.findQueued(eventId, userId);
+        if (admission.isPresent()) {
+            return requestMapper.convertToParticipationRequestDto(admission.get());
+        }
+        return participationRequestRepository.findByRequesterIdAndEventId(userId, eventId)
+                .map(requestMapper::convertToParticipationRequestDto)
+                .orElseThrow(() -> new NotFoundException("ParticipationRequest на данное событие не найдена"));
+    }
+
     @Transactional
     @Override
     public EventRequestStatusUpdateResult updateEventRequests(
@@ -115,32 +151,52 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
                             .collect(Collectors.toList()), new ArrayList<>());
         }
 
-        if (event.getConfirmedRequests() >= event.getParticipantLimit()) {
+        int seats = eventSeatRepository.reserve(eventId, participationRequests.size());
+        if (seats == 0) {
             throw new ValidationException("Достигнуто максимальное количество участников");
         }
-        processEventParticipationRequests(event, participationRequests, confirmedRequests, rejectedRequests);
-        eventRepository.save(event);
+        processEventParticipationRequests(seats, participationRequests, confirmedRequests, rejectedRequests);
+        eventListingProjector.eventChanged(eventId);
 
         return new EventRequestStatusUpdateResult(confirmedRequests, rejectedRequests);
     }
 
     @Override
-    public List<ParticipationRequestDto> getRequestByUserId(Long userId) {
+    public CursorSlice<ParticipationRequestDto> getRequestByUserId(Long userId, int from, Integer size, String cursor) {
         getUserById(userId);
+        Long after = cursor == null ? null : PageCursor.decode(cursor).getId();
 
-        return participationRequestRepository.findAllByRequesterId(userId).stream()
-                .map(requestMapper::convertToParticipationRequestDto)
-                .collect(Collectors.toList());
+        Slice<ParticipationRequest> requests = after == null
+                ? participationRequestRepository.findAllByRequesterId(userId, offsetPage(from, size))
+                : participationRequestRepository.findAllByRequesterIdAndIdGreaterThan(userId, after, cursorPage(size));
+        return CursorSlice.of(requests, requestMapper::convertToParticipationRequestDto,
+                request -> PageCursor.of(request.getId()));
     }
 
     @Override
-    public List<ParticipationRequestDto> getAllParticipationRequestsFromEventByOwner(Long userId, Long eventId) {
-        List<ParticipationRequest> requests = participationRequestRepository
-                .findAllByEventIdAndEventInitiatorId(eventId, userId);
+    public CursorSlice<ParticipationRequestDto> getAllParticipationRequestsFromEventByOwner(Long userId, Long eventId,
+                                                                                           int from, Integer size,
+                                                                                           String cursor) {
+        Long after = cursor == null ? null : PageCursor.decode(cursor).getId();
+
+        Slice<ParticipationRequest> requests = after == null
+                ? participationRequestRepository.findAllByEventIdAndEventInitiatorId(eventId, userId,
+                        offsetPage(from, size))
+                : participationRequestRepository.findAllByEventIdAndEventInitiatorIdAndIdGreaterThan(eventId, userId,
+                        after, cursorPage(size));
+        return CursorSlice.of(requests, requestMapper::convertToParticipationRequestDto,
+                request -> PageCursor.of(request.getId()));
+    }
 
-        return requests.stream()
-                .map(requestMapper::convertToParticipationRequestDto)
-                .collect(Collectors.toList());
+    /**
+     * Без size и cursor заявки отдаются целиком, как до постраничного вывода.
+     */
+    private static Pageable offsetPage(int from, Integer size) {
+        return size == null ? Pageable.unpaged() : new OffsetPageRequest(from, size, BY_ID);
+    }
+
+    private static Pageable cursorPage(Integer size) {
+        return PageRequest.of(0, size == null ? DEFAULT_PAGE_SIZE : size, BY_ID);
     }
 
     private Event getEventById(Long eventId) {
@@ -179,15 +235,17 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
                 .collect(Collectors.toList());
     }
 
-    private void processEventParticipationRequests(Event event, List<ParticipationRequest> participationRequests,
+    /**
+     * Подтверждает первые seats заявок, места под которые уже зарезервированы, остальные отклоняет.
+     */
+    private void processEventParticipationRequests(int seats, List<ParticipationRequest> participationRequests,
                                                    List<ParticipationRequestDto> confirmedRequests,
                                                    List<ParticipationRequestDto> rejectedRequests) {
 
         for (ParticipationRequest participationRequest : participationRequests) {
-            if (event.getConfirmedRequests() < event.getParticipantLimit()) {
+            if (confirmedRequests.size() < seats) {
                 participationRequest.setStatus(ParticipationRequestStatus.CONFIRMED);
                 participationRequestRepository.save(participationRequest);
-                event.setConfirmedRequests(event.getConfirmedRequests() + 1);
                 confirmedRequests.add(requestMapper.convertToParticipationRequestDto(participationRequest));
             } else {
                 participationRequest.setStatus(ParticipationRequestStatus.REJECTED);
@@ -2,6 +2,7 @@ package ru.practicum.user.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.user.dto.NewUserRequestDto;
 import ru.practicum.user.dto.UserDto;
@@ -24,10 +25,12 @@ public class AdminUserController {
     }
 
     @GetMapping
-    public List<UserDto> getAdminUsers(@RequestParam(name = "ids", required = false) List<Long> ids,
-                                       @RequestParam(name = "from", defaultValue = "0", required = false) int from,
-                                       @RequestParam(name = "size", defaultValue = "10", required = false) int size) {
-        return userService.findAll(ids, from, size);
+    public ResponseEntity<List<UserDto>> getAdminUsers(
+            @RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestParam(name = "from", defaultValue = "0", required = false) int from,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        return userService.findAll(ids, from, size, cursor).toResponseEntity();
     }
 
     @DeleteMapping("/{userId}")
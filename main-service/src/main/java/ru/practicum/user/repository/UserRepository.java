@@ -1,6 +1,7 @@
 package ru.practicum.user.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.practicum.user.model.User;
@@ -10,5 +11,11 @@ import java.util.List;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    List<User> findAllByIdIn(List<Long> ids, Pageable pageable);
+    Slice<User> findAllBy(Pageable pageable);
+
+    Slice<User> findAllByIdGreaterThan(Long id, Pageable pageable);
+
+    Slice<User> findAllByIdIn(List<Long> ids, Pageable pageable);
+
+    Slice<User> findAllByIdInAndIdGreaterThan(List<Long> ids, Long id, Pageable pageable);
 }
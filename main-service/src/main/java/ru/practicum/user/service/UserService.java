@@ -2,6 +2,7 @@ package ru.practicum.user.service;
 
 import ru.practicum.user.dto.NewUserRequestDto;
 import ru.practicum.user.dto.UserDto;
+import ru.practicum.pagination.CursorSlice;
 
 import java.util.List;
 
@@ -10,5 +11,5 @@ public interface UserService {
 
     void delete(Long userId);
 
-    List<UserDto> findAll(List<Long> ids, int from, int size);
+    CursorSlice<UserDto> findAll(List<Long> ids, int from, int size, String cursor);
 }
@@ -5,19 +5,23 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.config.EntityCacheEvictor;
 import ru.practicum.exception.ValidationException;
 import ru.practicum.user.dto.NewUserRequestDto;
 import ru.practicum.user.model.User;
 import ru.practicum.user.repository.UserRepository;
 import ru.practicum.user.dto.UserDto;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.pagination.CursorSlice;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 import ru.practicum.user.mapper.UserMapper;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +30,7 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final EntityCacheEvictor entityCacheEvictor;
 
 
     @Transactional
@@ -43,19 +48,20 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserDto> findAll(List<Long> ids, int from, int size) {
-        Pageable page = PageRequest.of(from / size, size, Sort.by("id").ascending());
+    public CursorSlice<UserDto> findAll(List<Long> ids, int from, int size, String cursor) {
+        Sort sort = Sort.by("id").ascending();
+        Long after = cursor == null ? null : PageCursor.decode(cursor).getId();
+        Pageable page = after == null ? new OffsetPageRequest(from, size, sort) : PageRequest.of(0, size, sort);
 
+        Slice<User> users;
         if (ids == null) {
-            return userRepository.findAll(page).stream()
-                    .map(userMapper::convertToUserDto)
-                    .collect(Collectors.toList());
+            users = after == null ? userRepository.findAllBy(page) : userRepository.findAllByIdGreaterThan(after, page);
         } else {
-            return userRepository.findAllByIdIn(ids, page).stream()
-                    .map(userMapper::convertToUserDto)
-                    .collect(Collectors.toList());
+            users = after == null
+                    ? userRepository.findAllByIdIn(ids, page)
+                    : userRepository.findAllByIdInAndIdGreaterThan(ids, after, page);
         }
-
+        return CursorSlice.of(users, userMapper::convertToUserDto, user -> PageCursor.of(user.getId()));
     }
 
     @Transactional
@@ -63,6 +69,7 @@ public class UserServiceImpl implements UserService {
     public void delete(Long userId) {
         try {
             userRepository.deleteById(userId);
+            entityCacheEvictor.evict(User.class, userId);
         } catch (EmptyResultDataAccessException e) {
             throw new NotFoundException("User with id = ");
         }
@@ -1,4 +1,4 @@
-DROP  TABLE IF EXISTS users, categories, compilations, events, compilations_events, requests, locations CASCADE;
+DROP  TABLE IF EXISTS users, categories, compilations, events, compilations_events, requests, locations, sync_watermarks, event_listing CASCADE;
 
 CREATE TABLE IF NOT EXISTS users (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -30,7 +30,7 @@ CREATE TABLE IF NOT EXISTS events (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     annotation VARCHAR(2000) NOT NULL,
     category_id BIGINT NOT NULL,
-    confirmed_requests BIGINT,
+    confirmed_requests BIGINT NOT NULL DEFAULT 0,
     created_on TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     description VARCHAR(7000) NOT NULL,
     event_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
@@ -42,7 +42,8 @@ CREATE TABLE IF NOT EXISTS events (
     request_moderation BOOLEAN ,
     state VARCHAR(255) NOT NULL,
     title VARCHAR(255) NOT NULL,
-    views BIGINT,
+    views BIGINT NOT NULL DEFAULT 0,
+    high_demand BOOLEAN NOT NULL DEFAULT FALSE,
     CONSTRAINT fk_events_to_categories FOREIGN KEY (category_id) REFERENCES categories(id),
     CONSTRAINT fk_events_to_users FOREIGN KEY (initiator_id) REFERENCES users(id),
     CONSTRAINT fk_events_to_locations FOREIGN KEY (location_id) REFERENCES locations(id)
@@ -62,5 +63,45 @@ CREATE TABLE IF NOT EXISTS requests (
     requester_id BIGINT NOT NULL,
     status VARCHAR(255) NOT NULL,
     CONSTRAINT fk_requests_to_events FOREIGN KEY (event_id) REFERENCES events(id),
-    CONSTRAINT fk_requests_to_users FOREIGN KEY (requester_id) REFERENCES users(id)
+    CONSTRAINT fk_requests_to_users FOREIGN KEY (requester_id) REFERENCES users(id),
+    CONSTRAINT UQ_REQUEST_REQUESTER_EVENT UNIQUE (requester_id, event_id)
 );
+
+CREATE TABLE IF NOT EXISTS sync_watermarks (
+    name VARCHAR(64) PRIMARY KEY,
+    watermark TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS event_listing (
+    event_id BIGINT PRIMARY KEY,
+    annotation VARCHAR(2000) NOT NULL,
+    category_id BIGINT NOT NULL,
+    category_name VARCHAR(50) NOT NULL,
+    confirmed_requests BIGINT NOT NULL DEFAULT 0,
+    created_on TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    description VARCHAR(7000) NOT NULL,
+    event_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    initiator_id BIGINT NOT NULL,
+    initiator_email VARCHAR(254) NOT NULL,
+    lat REAL NOT NULL,
+    lon REAL NOT NULL,
+    paid BOOLEAN NOT NULL,
+    participant_limit BIGINT NOT NULL DEFAULT 0,
+    published_on TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    request_moderation BOOLEAN NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    views BIGINT NOT NULL DEFAULT 0,
+    high_demand BOOLEAN NOT NULL DEFAULT FALSE,
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('russian', annotation), 'A') || setweight(to_tsvector('russian', description), 'B')
+    ) STORED,
+    CONSTRAINT fk_event_listing_to_events FOREIGN KEY (event_id) REFERENCES events(id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_event_listing_event_date ON event_listing (event_date, event_id);
+
+CREATE INDEX IF NOT EXISTS idx_event_listing_views ON event_listing (views DESC, event_id);
+
+CREATE INDEX IF NOT EXISTS idx_event_listing_category ON event_listing (category_id);
+
+CREATE INDEX IF NOT EXISTS idx_event_listing_search_vector ON event_listing USING GIN (search_vector);
@@ -0,0 +1,41 @@
+package ru.practicum;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Поднимает контекст основного сервиса на встроенном PostgreSQL, один экземпляр на все тесты.
+ * schema.sql пересоздаёт таблицы при каждом запуске контекста, поэтому контекст закрывается после класса.
+ * Кластер создаётся в UTF-8, как в образе PostgreSQL из docker-compose: иначе lower() и to_tsvector
+ * не разбирают кириллицу.
+ */
+@SpringBootTest
+@DirtiesContext
+public abstract class EmbeddedPostgresTest {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void dataSource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder()
+                    .setLocaleConfig("encoding", "UTF8")
+                    .setLocaleConfig("locale", "C.UTF-8")
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityCacheConfigTest {
+
+    private final EntityCacheConfig entityCacheConfig = new EntityCacheConfig();
+
+    @Test
+    void eachContextGetsItsOwnCacheManager() {
+        CacheManager first = entityCacheConfig.entityCacheManager(100, 60000);
+        CacheManager second = entityCacheConfig.entityCacheManager(100, 60000);
+        try {
+            assertThat(second).isNotSameAs(first);
+            first.getCache(EntityCacheConfig.CATEGORIES).put(1L, "Музыка");
+
+            first.close();
+
+            Cache<Object, Object> categories = second.getCache(EntityCacheConfig.CATEGORIES);
+            assertThat(second.isClosed()).isFalse();
+            assertThat(categories.get(1L)).isNull();
+            categories.put(1L, "Театр");
+            assertThat(categories.get(1L)).isEqualTo("Театр");
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.event.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.event.model.EventListingFilter;
+import ru.practicum.event.model.EventShortView;
+import ru.practicum.event.model.EventSort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет полнотекстовый поиск по event_listing. Сравнение с прежним поиском через lower(...) LIKE
+ * на миллионе событий запускается с -Dbenchmark=true.
+ */
+@Slf4j
+class EventListingSearchTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventListingRepository eventListingRepository;
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.getJdbcTemplate().execute("TRUNCATE event_listing, requests, compilations_events, events, " +
+                "users, categories, locations RESTART IDENTITY CASCADE");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO users (name, email) VALUES ('user', 'user@mail.ru')");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO categories (name) VALUES ('Музыка')");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO locations (lat, lon) VALUES (55.75, 37.61)");
+    }
+
+    @Test
+    void findsWordFormsAndRanksAnnotationAboveDescription() {
+        insertEvent(1, "Выставка современного искусства", "Картины и скульптуры молодых художников");
+        insertEvent(2, "Вечер в клубе", "В программе джазовые концерты до полуночи");
+        insertEvent(3, "Большой концерт на площади", "Лучшие группы города");
+        eventListingRepository.refresh(List.of(1L, 2L, 3L));
+
+        List<Long> found = search("концерт", EventSort.RELEVANCE);
+
+        assertThat(found).containsExactly(3L, 2L);
+        assertThat(search("художник", EventSort.EVENT_DATE)).containsExactly(1L);
+        assertThat(search("балет", EventSort.EVENT_DATE)).isEmpty();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void fullTextSearchAgainstLikeOnMillionEvents() {
+        int events = 1_000_000;
+        long started = System.nanoTime();
+        // Каждое тысячное событие про джаз, каждое десятое про концерт, остальной текст случайный
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO events (annotation, category_id, confirmed_requests, " +
+                "created_on, description, event_date, initiator_id, location_id, paid, participant_limit, " +
+                "published_on, request_moderation, state, title) " +
+                "SELECT CASE WHEN i % 1000 = 0 THEN 'Джазовый вечер ' WHEN i % 10 = 0 THEN 'Концерт ' ELSE '' END " +
+                "|| md5(i::text), 1, 0, now(), repeat(md5((i * 31)::text) || ' ', 20), " +
+                "now() + (i || ' minutes')::interval, 1, 1, false, 0, now(), false, 'PUBLISHED', 'Событие ' || i " +
+                "FROM generate_series(1, ?) i", events);
+        jdbcTemplate.getJdbcTemplate().update("INSERT INTO event_listing (event_id, annotation, category_id, " +
+                "category_name, confirmed_requests, created_on, description, event_date, initiator_id, " +
+                "initiator_email, lat, lon, paid, participant_limit, published_on, request_moderation, title, views) " +
+                "SELECT id, annotation, 1, 'Музыка', 0, created_on, description, event_date, 1, 'user@mail.ru', " +
+                "55.75, 37.61, paid, participant_limit, published_on, request_moderation, title, views FROM events");
+        jdbcTemplate.getJdbcTemplate().execute("ANALYZE event_listing");
+        log.info("Сгенерировано {} событий за {} с", events, (System.nanoTime() - started) / 1_000_000_000);
+
+        for (String text : List.of("джазовый", "концерт")) {
+            for (int pass = 0; pass < 2; pass++) {
+                int rounds = 20;
+                long like = 0;
+                long fts = 0;
+                int likeFound = 0;
+                int ftsFound = 0;
+                for (int i = 0; i < rounds; i++) {
+                    started = System.nanoTime();
+                    likeFound = like(text, i * 10).size();
+                    like += System.nanoTime() - started;
+
+                    started = System.nanoTime();
+                    ftsFound = eventListingRepository.find(EventListingFilter.builder().text(text).build(),
+                            EventSort.EVENT_DATE, null, i * 10, 10).getNumberOfElements();
+                    fts += System.nanoTime() - started;
+                }
+                log.info("Поиск «{}» по {} событиям: LIKE {} мс ({} строк), полнотекстовый {} мс ({} строк)",
+                        text, events, like / rounds / 1_000_000, likeFound, fts / rounds / 1_000_000, ftsFound);
+            }
+        }
+    }
+
+    /**
+     * Прежний фильтр по тексту: подстрока в аннотации или описании без учёта регистра.
+     */
+    private List<Long> like(String text, long offset) {
+        return jdbcTemplate.queryForList("SELECT event_id FROM event_listing " +
+                        "WHERE lower(annotation) LIKE :text OR lower(description) LIKE :text " +
+                        "ORDER BY event_date, event_id LIMIT 11 OFFSET :offset",
+                Map.of("text", "%" + text.toLowerCase() + "%", "offset", offset), Long.class);
+    }
+
+    private List<Long> search(String text, EventSort sort) {
+        return eventListingRepository.find(EventListingFilter.builder().text(text).build(), sort, null, 0, 10)
+                .getContent().stream()
+                .map(EventShortView::getId)
+                .collect(Collectors.toList());
+    }
+
+    private void insertEvent(long id, String annotation, String description) {
+        jdbcTemplate.update("INSERT INTO events (id, annotation, category_id, confirmed_requests, created_on, " +
+                        "description, event_date, initiator_id, location_id, paid, participant_limit, published_on, " +
+                        "request_moderation, state, title) VALUES (:id, :annotation, 1, 0, now(), :description, " +
+                        "now() + (:id || ' days')::interval, 1, 1, false, 0, now(), false, 'PUBLISHED', :annotation)",
+                Map.of("id", id, "annotation", annotation, "description", description));
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.event.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.category.dto.NewCategoryDto;
+import ru.practicum.category.service.CategoryService;
+import ru.practicum.event.dto.EventRequestStatusUpdateRequest;
+import ru.practicum.event.dto.UpdateEventAdminRequest;
+import ru.practicum.event.dto.UpdateEventUserRequest;
+import ru.practicum.event.model.EventStatus;
+import ru.practicum.event.model.StateAction;
+import ru.practicum.request.dto.ParticipationRequestDto;
+import ru.practicum.request.service.ParticipationRequestService;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что event_listing повторяет события после изменений через сервисы: в таблице только
+ * опубликованные события, с текущими названием, категорией и числом подтверждённых заявок.
+ */
+class EventListingProjectionTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ParticipationRequestService participationRequestService;
+
+    @BeforeEach
+    void fill() {
+        jdbcTemplate.execute("TRUNCATE event_listing, requests, compilations_events, events, users, categories, " +
+                "locations RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("INSERT INTO users (name, email) SELECT 'user' || i, 'user' || i || '@mail.ru' " +
+                "FROM generate_series(1, 3) i");
+        jdbcTemplate.execute("INSERT INTO categories (name) VALUES ('Музыка')");
+        jdbcTemplate.execute("INSERT INTO locations (lat, lon) VALUES (55.75, 37.61)");
+        // Событие 1 с модерацией заявок, событие 2 без неё
+        jdbcTemplate.execute("INSERT INTO events (annotation, category_id, confirmed_requests, created_on, " +
+                "description, event_date, initiator_id, location_id, paid, participant_limit, " +
+                "request_moderation, state, title) " +
+                "SELECT 'Событие ' || i, 1, 0, now(), 'Описание', now() + interval '1 day', 1, 1, false, 10, " +
+                "i = 1, 'PENDING', 'Событие ' || i FROM generate_series(1, 2) i");
+    }
+
+    @Test
+    void publishedEventAndItsEditsReachListing() {
+        assertThat(listing(1)).isEmpty();
+
+        eventService.updateAdminEvent(1L, adminRequest(null, StateAction.PUBLISH_EVENT));
+
+        assertThat(listing(1)).containsEntry("title", "Событие 1")
+                .containsEntry("category_name", "Музыка")
+                .containsEntry("initiator_email", "user1@mail.ru");
+
+        eventService.updateAdminEvent(1L, adminRequest("Большой концерт", null));
+        categoryService.update(1L, new NewCategoryDto("Концерты"));
+
+        assertThat(listing(1)).containsEntry("title", "Большой концерт")
+                .containsEntry("category_name", "Концерты");
+    }
+
+    @Test
+    void confirmedRequestsReachListing() {
+        eventService.updateAdminEvent(1L, adminRequest(null, StateAction.PUBLISH_EVENT));
+        eventService.updateAdminEvent(2L, adminRequest(null, StateAction.PUBLISH_EVENT));
+
+        ParticipationRequestDto moderated = participationRequestService.create(2L, 1L);
+        participationRequestService.create(3L, 1L);
+        participationRequestService.create(2L, 2L);
+
+        assertThat(listing(1)).containsEntry("confirmed_requests", 0L);
+        assertThat(listing(2)).containsEntry("confirmed_requests", 1L);
+
+        participationRequestService.updateEventRequests(1L, 1L,
+                new EventRequestStatusUpdateRequest(List.of(moderated.getId()), EventStatus.CONFIRMED));
+
+        assertThat(listing(1)).containsEntry("confirmed_requests", 1L);
+    }
+
+    @Test
+    void unpublishedEventsStayOutOfListing() {
+        UpdateEventUserRequest cancel = new UpdateEventUserRequest();
+        cancel.setStateAction(StateAction.CANCEL_REVIEW);
+        eventService.updateUserEventById(1L, 1L, cancel);
+        eventService.updateAdminEvent(2L, adminRequest(null, StateAction.REJECT_EVENT));
+
+        assertThat(listing(1)).isEmpty();
+        assertThat(listing(2)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM event_listing", Long.class)).isZero();
+    }
+
+    private Map<String, Object> listing(long eventId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT title, category_name, initiator_email, " +
+                "confirmed_requests FROM event_listing WHERE event_id = ?", eventId);
+        return rows.isEmpty() ? Map.of() : rows.get(0);
+    }
+
+    private static UpdateEventAdminRequest adminRequest(String title, StateAction stateAction) {
+        UpdateEventAdminRequest request = new UpdateEventAdminRequest();
+        request.setTitle(title);
+        request.setStateAction(stateAction);
+        return request;
+    }
+}
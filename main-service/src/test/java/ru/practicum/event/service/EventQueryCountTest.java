@@ -0,0 +1,79 @@
+package ru.practicum.event.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.event.dto.EventFullDto;
+import ru.practicum.event.dto.EventShortDto;
+import ru.practicum.pagination.CursorSlice;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Страница событий читается одним запросом, без отдельных запросов категории, инициатора и места по строкам.
+ * Кэш второго уровня очищается перед вызовом, чтобы он не скрывал ленивые загрузки.
+ */
+class EventQueryCountTest extends EmbeddedPostgresTest {
+
+    private static final int USERS = 5;
+    private static final int EVENTS = 40;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EventService eventService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void fill() {
+        jdbcTemplate.execute("TRUNCATE event_listing, requests, compilations_events, events, users, categories, " +
+                "locations RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("INSERT INTO users (name, email) SELECT 'user' || i, 'user' || i || '@mail.ru' " +
+                "FROM generate_series(1, ?) i", USERS);
+        jdbcTemplate.update("INSERT INTO categories (name) SELECT 'category' || i FROM generate_series(1, ?) i", USERS);
+        jdbcTemplate.update("INSERT INTO locations (lat, lon) SELECT i, i FROM generate_series(1, ?) i", EVENTS);
+        jdbcTemplate.update("INSERT INTO events (annotation, category_id, confirmed_requests, created_on, " +
+                "description, event_date, initiator_id, location_id, paid, participant_limit, published_on, " +
+                "request_moderation, state, title) " +
+                "SELECT 'Событие ' || i, i % ? + 1, 0, now(), 'Описание', now() + interval '1 day', i % ? + 1, i, " +
+                "false, 0, now(), true, 'PUBLISHED', 'Событие ' || i FROM generate_series(1, ?) i",
+                USERS, USERS, EVENTS);
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void userEventsPageIsOneQuery() {
+        CursorSlice<EventShortDto> events = eventService.getUserEvents(1L, 0, 5, null);
+
+        assertThat(events.getContent()).hasSize(5);
+        assertThat(events.getContent()).allSatisfy(event -> assertThat(event.getCategory().getName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void adminEventsPageIsOneQuery() {
+        CursorSlice<EventFullDto> events = eventService.getAdminEvents(null, null, null, null, null, 0, 20, null);
+
+        assertThat(events.getContent()).hasSize(20);
+        assertThat(events.getContent()).allSatisfy(event -> {
+            assertThat(event.getCategory().getName()).isNotNull();
+            assertThat(event.getInitiator().getEmail()).isNotNull();
+            assertThat(event.getLocation().getLat()).isPositive();
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.event.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.event.dto.EventSuggestionDto;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventState;
+import ru.practicum.event.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventTitleIndexTest {
+
+    private final EventRepository eventRepository = mock(EventRepository.class);
+
+    @Test
+    void findsTitlesByNormalizedPrefix() {
+        EventTitleIndex index = index(Long.MAX_VALUE,
+                row(1, "Ёлка  в Кремле"), row(2, "Джазовый вечер"), row(3, "ЕЛОВЫЙ лес"));
+
+        assertThat(ids(index.suggest("  ел", 10))).containsExactly(1L, 3L);
+        assertThat(ids(index.suggest("ёлка в", 10))).containsExactly(1L);
+        assertThat(ids(index.suggest("джаз", 10))).containsExactly(2L);
+        assertThat(index.suggest("балет", 10)).isEmpty();
+        assertThat(index.suggest(" ", 10)).isEmpty();
+    }
+
+    @Test
+    void ranksAlphabeticallyThenById() {
+        EventTitleIndex index = index(Long.MAX_VALUE,
+                row(10, "Концерт"), row(9, "Концерт"), row(70000, "Концерт"), row(1, "Концерт в парке"),
+                row(2, "Конференция"));
+
+        assertThat(ids(index.suggest("кон", 10))).containsExactly(2L, 9L, 10L, 70000L, 1L);
+        assertThat(ids(index.suggest("кон", 2))).containsExactly(2L, 9L);
+    }
+
+    @Test
+    void oldestEventsAreEvictedOverMemoryBudget() {
+        EventTitleIndex unbounded = index(Long.MAX_VALUE, row(1, "Концерт 1"));
+        long entryBytes = unbounded.estimatedBytes();
+
+        EventTitleIndex index = index(entryBytes * 3,
+                row(4, "Концерт 4"), row(1, "Концерт 1"), row(3, "Концерт 3"), row(2, "Концерт 2"));
+
+        assertThat(ids(index.suggest("концерт", 10))).containsExactly(2L, 3L, 4L);
+        assertThat(index.estimatedBytes()).isEqualTo(entryBytes * 3);
+
+        index.update(event(5, "Концерт 5", EventState.PUBLISHED));
+
+        assertThat(ids(index.suggest("концерт", 10))).containsExactly(3L, 4L, 5L);
+        assertThat(index.estimatedBytes()).isLessThanOrEqualTo(entryBytes * 3);
+    }
+
+    @Test
+    void updateReplacesTitleAndRemovesUnpublished() {
+        EventTitleIndex index = index(Long.MAX_VALUE, row(1, "Концерт"), row(2, "Спектакль"));
+        long bytes = index.estimatedBytes();
+
+        index.update(event(1, "Выставка", EventState.PUBLISHED));
+
+        assertThat(index.suggest("конц", 10)).isEmpty();
+        assertThat(index.suggest("выст", 10)).containsExactly(new EventSuggestionDto(1L, "Выставка"));
+
+        index.update(event(2, "Спектакль", EventState.CANCELED));
+        index.update(event(3, "Концерт", EventState.PENDING));
+
+        assertThat(index.suggest("спект", 10)).isEmpty();
+        assertThat(index.suggest("конц", 10)).isEmpty();
+        assertThat(index.estimatedBytes()).isLessThan(bytes);
+    }
+
+    @Test
+    void renamedEventIsAlwaysFoundOnce() throws InterruptedException {
+        EventTitleIndex index = index(Long.MAX_VALUE, row(1, "Концерт А"), row(2, "Концерт Б"), row(3, "Концерт Я"));
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread renamer = new Thread(() -> {
+            for (int i = 0; !stop.get(); i++) {
+                index.update(event(2, i % 2 == 0 ? "Концерт В" : "Концерт Б", EventState.PUBLISHED));
+            }
+        });
+        renamer.start();
+
+        List<List<Long>> wrong = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200_000 && wrong.size() < 10; i++) {
+                List<Long> found = ids(index.suggest("концерт", 10));
+                if (found.size() != 3 || !found.contains(2L)) {
+                    wrong.add(found);
+                }
+            }
+        } finally {
+            stop.set(true);
+            renamer.join();
+        }
+
+        assertThat(wrong).isEmpty();
+    }
+
+    private EventTitleIndex index(long maxBytes, Object[]... rows) {
+        when(eventRepository.findIdAndTitleByState(EventState.PUBLISHED)).thenReturn(List.of(rows));
+        EventTitleIndex index = new EventTitleIndex(eventRepository, new SimpleMeterRegistry(), maxBytes);
+        index.rebuild();
+        return index;
+    }
+
+    private static Object[] row(long id, String title) {
+        return new Object[]{id, title};
+    }
+
+    private static Event event(long id, String title, EventState state) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle(title);
+        event.setState(state);
+        return event;
+    }
+
+    private static List<Long> ids(List<EventSuggestionDto> suggestions) {
+        List<Long> ids = new ArrayList<>();
+        suggestions.forEach(suggestion -> ids.add(suggestion.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.event.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.EventViews;
+import ru.practicum.StatsRequestCoalescer;
+import ru.practicum.StatsUnavailableException;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventViewsCacheTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final Map<Long, LocalDateTime> EVENTS = Map.of(1L, CREATED, 2L, CREATED, 3L, CREATED);
+
+    private final StatsRequestCoalescer coalescer = mock(StatsRequestCoalescer.class);
+
+    @Test
+    void missesAreLoadedInOneCall() {
+        when(coalescer.getEventViews(any(), anyCollection(), eq(true))).thenAnswer(invocation -> views(10));
+        EventViewsCache cache = cache(60000);
+
+        EventViews first = cache.getViews(EVENTS);
+        EventViews second = cache.getViews(EVENTS);
+
+        assertThat(first.get(2)).isEqualTo(12);
+        assertThat(second.get(3)).isEqualTo(13);
+        verify(coalescer, times(1)).getEventViews(eq(CREATED), eq(EVENTS.keySet()), eq(true));
+    }
+
+    @Test
+    void staleEntriesAreRefreshedInOneBackgroundCall() throws InterruptedException {
+        when(coalescer.getEventViews(any(), anyCollection(), eq(true)))
+                .thenAnswer(invocation -> views(10))
+                .thenAnswer(invocation -> views(20));
+        EventViewsCache cache = cache(200);
+        cache.getViews(EVENTS);
+        Thread.sleep(250);
+
+        EventViews served = cache.getViews(EVENTS);
+
+        assertThat(served.get(1)).isEqualTo(11);
+        verify(coalescer, timeout(1000).times(2)).getEventViews(eq(CREATED), eq(EVENTS.keySet()), eq(true));
+        Thread.sleep(50);
+        assertThat(cache.getViews(EVENTS).get(1)).isEqualTo(21);
+    }
+
+    @Test
+    void lastKnownViewsAreServedWhenStatsAreUnavailable() {
+        when(coalescer.getEventViews(any(), anyCollection(), eq(true)))
+                .thenAnswer(invocation -> views(10))
+                .thenThrow(new StatsUnavailableException("Сервер статистики недоступен"));
+        EventViewsCache cache = new EventViewsCache(coalescer, new SimpleMeterRegistry(), 1000, 1, 60000);
+        cache.getViews(Map.of(1L, CREATED));
+
+        EventViews views = cache.getViews(Map.of(1L, CREATED, 4L, CREATED));
+
+        assertThat(views.isStale()).isTrue();
+        assertThat(views.get(1)).isEqualTo(11);
+        assertThat(views.contains(4)).isFalse();
+    }
+
+    private EventViewsCache cache(long refreshAfterWriteMs) {
+        return new EventViewsCache(coalescer, new SimpleMeterRegistry(), 1000, 60000, refreshAfterWriteMs);
+    }
+
+    /**
+     * Просмотры события id равны base + id, чтобы разные загрузки отличались.
+     */
+    private static EventViews views(long base) {
+        EventViews views = new EventViews(3);
+        for (long eventId : Set.of(1L, 2L, 3L, 4L)) {
+            views.add(eventId, base + eventId);
+        }
+        return views;
+    }
+}
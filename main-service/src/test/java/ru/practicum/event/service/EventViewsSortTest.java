@@ -0,0 +1,94 @@
+package ru.practicum.event.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.EventViews;
+import ru.practicum.StatsClient;
+import ru.practicum.event.dto.EventShortDto;
+import ru.practicum.event.model.EventSort;
+import ru.practicum.event.repository.EventListingRepository;
+import ru.practicum.pagination.CursorSlice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверяет sort=VIEWS на просмотрах, пришедших из статистики через синхронизатор: события идут по убыванию
+ * просмотров на всех страницах, а в ответе те же просмотры, по которым они упорядочены.
+ * Синхронизатор включён настройками по умолчанию.
+ */
+@TestPropertySource(properties = "stats-server.views-sync.interval-ms=3600000")
+class EventViewsSortTest extends EmbeddedPostgresTest {
+
+    private static final Map<Long, Long> VIEWS = Map.of(1L, 10L, 2L, 50L, 4L, 30L, 5L, 50L, 6L, 7L);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventListingRepository eventListingRepository;
+
+    @Autowired
+    private EventViewsSynchronizer eventViewsSynchronizer;
+
+    @Autowired
+    private EventService eventService;
+
+    @MockBean
+    private StatsClient statsClient;
+
+    @BeforeEach
+    void fill() {
+        jdbcTemplate.execute("TRUNCATE event_listing, requests, compilations_events, events, users, categories, " +
+                "locations RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("INSERT INTO users (name, email) VALUES ('user', 'user@mail.ru')");
+        jdbcTemplate.execute("INSERT INTO categories (name) VALUES ('Музыка')");
+        jdbcTemplate.execute("INSERT INTO locations (lat, lon) VALUES (55.75, 37.61)");
+        jdbcTemplate.execute("INSERT INTO events (annotation, category_id, confirmed_requests, created_on, " +
+                "description, event_date, initiator_id, location_id, paid, participant_limit, published_on, " +
+                "request_moderation, state, title) " +
+                "SELECT 'Событие ' || i, 1, 0, now() - interval '1 day', 'Описание', " +
+                "now() + (i || ' days')::interval, 1, 1, false, 0, now(), false, 'PUBLISHED', 'Событие ' || i " +
+                "FROM generate_series(1, 6) i");
+        eventListingRepository.refresh(LongStream.rangeClosed(1, 6).boxed().collect(Collectors.toList()));
+
+        EventViews hits = new EventViews(VIEWS.size());
+        VIEWS.forEach(hits::add);
+        when(statsClient.getEventHits(any(), any())).thenReturn(hits);
+        when(statsClient.getEventViewsAsync(any(), any(), anyCollection(), anyBoolean(), anyBoolean()))
+                .thenReturn(CompletableFuture.completedFuture(hits));
+    }
+
+    @Test
+    void eventsAreRankedByViewsFromStatsAcrossPages() {
+        eventViewsSynchronizer.synchronize();
+
+        List<EventShortDto> events = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorSlice<EventShortDto> page = eventService.getAll(null, null, null, null, null, null,
+                    0, 2, cursor, EventSort.VIEWS, new MockHttpServletRequest("GET", "/events"));
+            events.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(events).extracting(EventShortDto::getId).containsExactly(2L, 5L, 4L, 1L, 6L, 3L);
+        assertThat(events).extracting(EventShortDto::getViews).containsExactly(50L, 50L, 30L, 10L, 7L, 0L);
+    }
+}
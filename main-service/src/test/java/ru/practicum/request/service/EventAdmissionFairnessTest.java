@@ -0,0 +1,79 @@
+package ru.practicum.request.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.request.model.Admission;
+import ru.practicum.request.repository.AdmissionRepository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Длинная очередь одного события не должна задерживать заявку на другое: разборщик пишет не больше
+ * одной пачки события за проход и чередует события.
+ */
+@TestPropertySource(properties = {
+        "events.admission.batch-size=2",
+        "events.admission.max-batches-per-pass=1"
+})
+class EventAdmissionFairnessTest extends EmbeddedPostgresTest {
+
+    private static final int BUSY_REQUESTERS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventAdmissionQueue eventAdmissionQueue;
+
+    @SpyBean
+    private AdmissionRepository admissionRepository;
+
+    @BeforeEach
+    void fill() {
+        jdbcTemplate.execute("TRUNCATE event_listing, requests, compilations_events, events, users, categories, " +
+                "locations RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("INSERT INTO users (name, email) SELECT 'user' || i, 'user' || i || '@mail.ru' " +
+                "FROM generate_series(1, ?) i", BUSY_REQUESTERS + 2);
+        jdbcTemplate.execute("INSERT INTO categories (name) VALUES ('Музыка')");
+        jdbcTemplate.execute("INSERT INTO locations (lat, lon) VALUES (55.75, 37.61)");
+        jdbcTemplate.execute("INSERT INTO events (annotation, category_id, created_on, description, event_date, " +
+                "high_demand, initiator_id, location_id, paid, participant_limit, published_on, request_moderation, " +
+                "state, title) SELECT 'Концерт', 1, now(), 'Концерт', now() + interval '1 day', true, 1, 1, false, " +
+                "0, now(), false, 'PUBLISHED', 'Концерт ' || i FROM generate_series(1, 2) i");
+    }
+
+    @Test
+    void shortQueueIsNotStarvedByLongOne() throws InterruptedException {
+        List<Long> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<List<Admission>>getArgument(0).forEach(admission -> written.add(admission.getEventId()));
+            return invocation.callRealMethod();
+        }).when(admissionRepository).insertAll(anyList(), anyList());
+
+        for (long userId = 2; userId <= BUSY_REQUESTERS + 1; userId++) {
+            eventAdmissionQueue.enqueue(1L, userId);
+        }
+        eventAdmissionQueue.enqueue(2L, BUSY_REQUESTERS + 2L);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (written.size() < BUSY_REQUESTERS + 1) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+
+        // Заявка на второе событие записана раньше, чем разобрана половина очереди первого
+        assertThat(written.indexOf(2L)).isLessThan(BUSY_REQUESTERS / 2);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE status = 'CONFIRMED'",
+                Long.class)).isEqualTo(BUSY_REQUESTERS + 1);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.request.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.event.repository.EventSeatRepository;
+import ru.practicum.request.model.Admission;
+import ru.practicum.request.model.ParticipationRequestStatus;
+import ru.practicum.request.repository.AdmissionRepository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class EventAdmissionQueueTest extends EmbeddedPostgresTest {
+
+    private static final int REQUESTERS = 5;
+    private static final long LIMIT = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventAdmissionQueue eventAdmissionQueue;
+
+    @SpyBean
+    private EventSeatRepository eventSeatRepository;
+
+    @SpyBean
+    private AdmissionRepository admissionRepository;
+
+    @BeforeEach
+    void fill() {
+        jdbcTemplate.execute("TRUNCATE event_listing, requests, compilations_events, events, users, categories, " +
+                "locations RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("INSERT INTO users (name, email) SELECT 'user' || i, 'user' || i || '@mail.ru' " +
+                "FROM generate_series(1, ?) i", REQUESTERS + 1);
+        jdbcTemplate.execute("INSERT INTO categories (name) VALUES ('Музыка')");
+        jdbcTemplate.execute("INSERT INTO locations (lat, lon) VALUES (55.75, 37.61)");
+        jdbcTemplate.update("INSERT INTO events (annotation, category_id, created_on, description, event_date, " +
+                "high_demand, initiator_id, location_id, paid, participant_limit, published_on, request_moderation, " +
+                "state, title) VALUES ('Концерт', 1, now(), 'Концерт', now() + interval '1 day', true, 1, 1, false, " +
+                "?, now(), false, 'PUBLISHED', 'Концерт')", LIMIT);
+    }
+
+    @Test
+    void requestStoredPastQueueDoesNotFailBatch() throws InterruptedException {
+        // Заявка, созданная синхронно в обход очереди, пока пачка уже записывается
+        doAnswer(invocation -> {
+            jdbcTemplate.execute("INSERT INTO requests (created, event_id, requester_id, status) " +
+                    "VALUES (now(), 1, 2, 'PENDING')");
+            return invocation.callRealMethod();
+        }).when(eventSeatRepository).reserve(anyLong(), anyInt());
+
+        for (long userId = 2; userId <= REQUESTERS + 1; userId++) {
+            eventAdmissionQueue.enqueue(1L, userId);
+        }
+        awaitWritten();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM requests WHERE requester_id = 2", String.class))
+                .isEqualTo("PENDING");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE event_id = 1", Long.class))
+                .isEqualTo(REQUESTERS);
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = 1", Long.class))
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE event_id = 1 " +
+                        "AND status = 'CONFIRMED'", Long.class))
+                .isPositive();
+    }
+
+    @Test
+    void failedBatchStaysQueuedAndIsRetried() throws InterruptedException {
+        doThrow(new CannotAcquireLockException("Не удалось получить блокировку события"))
+                .doThrow(new CannotAcquireLockException("Не удалось получить блокировку события"))
+                .doCallRealMethod()
+                .when(eventSeatRepository).reserve(anyLong(), anyInt());
+
+        for (long userId = 2; userId <= REQUESTERS + 1; userId++) {
+            eventAdmissionQueue.enqueue(1L, userId);
+        }
+        // Первая неудачная попытка: заявки остаются в очереди и видны при опросе статуса
+        verify(eventSeatRepository, timeout(5000)).reserve(anyLong(), anyInt());
+        assertThat(eventAdmissionQueue.findQueued(1L, 2L))
+                .map(Admission::getStatus)
+                .contains(ParticipationRequestStatus.QUEUED);
+
+        awaitWritten();
+
+        verify(eventSeatRepository, atLeast(3)).reserve(anyLong(), anyInt());
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE event_id = 1 " +
+                "AND status = 'CONFIRMED'", Long.class)).isEqualTo(LIMIT);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE event_id = 1 " +
+                "AND status = 'REJECTED'", Long.class)).isEqualTo(REQUESTERS - LIMIT);
+    }
+
+    @Test
+    void statusIsPublishedOnlyAfterCommit() throws InterruptedException {
+        List<ParticipationRequestStatus> seenInTransaction = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            for (long userId = 2; userId <= REQUESTERS + 1; userId++) {
+                eventAdmissionQueue.findQueued(1L, userId)
+                        .ifPresent(admission -> seenInTransaction.add(admission.getStatus()));
+            }
+            return invocation.callRealMethod();
+        }).when(admissionRepository).insertAll(anyList(), anyList());
+
+        for (long userId = 2; userId <= REQUESTERS + 1; userId++) {
+            eventAdmissionQueue.enqueue(1L, userId);
+        }
+        awaitWritten();
+
+        assertThat(seenInTransaction).isNotEmpty().containsOnly(ParticipationRequestStatus.QUEUED);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE event_id = 1 " +
+                "AND status = 'CONFIRMED'", Long.class)).isEqualTo(LIMIT);
+    }
+
+    private void awaitWritten() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        for (long userId = 2; userId <= REQUESTERS + 1; userId++) {
+            while (eventAdmissionQueue.findQueued(1L, userId).isPresent()) {
+                assertThat(System.currentTimeMillis()).isLessThan(deadline);
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.request.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.pagination.CursorSlice;
+import ru.practicum.request.dto.ParticipationRequestDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParticipationRequestPagingTest extends EmbeddedPostgresTest {
+
+    private static final int REQUESTS = 12;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ParticipationRequestService participationRequestService;
+
+    @BeforeEach
+    void fill() {
+        jdbcTemplate.execute("TRUNCATE event_listing, requests, compilations_events, events, users, categories, " +
+                "locations RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("INSERT INTO users (name, email) SELECT 'user' || i, 'user' || i || '@mail.ru' " +
+                "FROM generate_series(1, ?) i", REQUESTS + 1);
+        jdbcTemplate.execute("INSERT INTO categories (name) VALUES ('Музыка')");
+        jdbcTemplate.execute("INSERT INTO locations (lat, lon) VALUES (55.75, 37.61)");
+        jdbcTemplate.execute("INSERT INTO events (annotation, category_id, confirmed_requests, created_on, " +
+                "description, event_date, initiator_id, location_id, paid, participant_limit, published_on, " +
+                "request_moderation, state, title) VALUES ('Концерт', 1, 0, now(), 'Концерт', now() + interval '1 day', " +
+                "1, 1, false, 0, now(), true, 'PUBLISHED', 'Концерт')");
+        jdbcTemplate.execute("INSERT INTO requests (created, event_id, requester_id, status) " +
+                "SELECT now(), 1, id, 'PENDING' FROM users WHERE id > 1");
+    }
+
+    @Test
+    void withoutSizeAndCursorReturnsWholeList() {
+        CursorSlice<ParticipationRequestDto> byOwner =
+                participationRequestService.getAllParticipationRequestsFromEventByOwner(1L, 1L, 0, null, null);
+        CursorSlice<ParticipationRequestDto> byRequester =
+                participationRequestService.getRequestByUserId(2L, 0, null, null);
+
+        assertThat(byOwner.getContent()).hasSize(REQUESTS);
+        assertThat(byOwner.getNextCursor()).isNull();
+        assertThat(byRequester.getContent()).hasSize(1);
+    }
+
+    @Test
+    void sizeAndCursorPageThroughList() {
+        CursorSlice<ParticipationRequestDto> first =
+                participationRequestService.getAllParticipationRequestsFromEventByOwner(1L, 1L, 0, 5, null);
+        CursorSlice<ParticipationRequestDto> rest =
+                participationRequestService.getAllParticipationRequestsFromEventByOwner(1L, 1L, 0, null,
+                        first.getNextCursor());
+
+        assertThat(first.getContent()).hasSize(5);
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(rest.getContent()).hasSize(REQUESTS - 5);
+        assertThat(rest.getContent().get(0).getId()).isEqualTo(first.getContent().get(4).getId() + 1);
+        assertThat(rest.getNextCursor()).isNull();
+    }
+}
@@ -0,0 +1,185 @@
+package ru.practicum.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.event.dto.UpdateEventAdminRequest;
+import ru.practicum.event.repository.EventSeatRepository;
+import ru.practicum.event.service.EventService;
+import ru.practicum.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельные заявки на событие с лимитом не должны занять больше мест, чем есть, даже когда администратор
+ * в это же время сохраняет событие целиком. Тысяча одновременных заявок, каждая в своём потоке,
+ * и сравнение пропускной способности условного UPDATE с блокировкой через SELECT ... FOR UPDATE
+ * запускаются с -Dbenchmark=true.
+ */
+@Slf4j
+class SeatReservationStressTest extends EmbeddedPostgresTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTERS = 400;
+    private static final int PEAK_REQUESTERS = 1000;
+    private static final long LIMIT = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ParticipationRequestService participationRequestService;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventSeatRepository eventSeatRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+    @BeforeEach
+    void fill() {
+        jdbcTemplate.execute("TRUNCATE event_listing, requests, compilations_events, events, users, categories, " +
+                "locations RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("INSERT INTO users (name, email) SELECT 'user' || i, 'user' || i || '@mail.ru' " +
+                "FROM generate_series(1, ?) i", PEAK_REQUESTERS + 1);
+        jdbcTemplate.execute("INSERT INTO categories (name) VALUES ('Музыка')");
+        jdbcTemplate.execute("INSERT INTO locations (lat, lon) VALUES (55.75, 37.61)");
+        jdbcTemplate.update("INSERT INTO events (annotation, category_id, created_on, description, event_date, " +
+                "initiator_id, location_id, paid, participant_limit, published_on, request_moderation, state, title) " +
+                "VALUES ('Концерт', 1, now(), 'Концерт', now() + interval '1 day', 1, 1, false, ?, now(), false, " +
+                "'PUBLISHED', 'Концерт')", LIMIT);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsDoNotOversellWhileAdminSavesEvent() throws Exception {
+        requestConcurrently(REQUESTERS, executor);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void thousandSimultaneousRequestersDoNotOversell() throws Exception {
+        ExecutorService requesters = Executors.newFixedThreadPool(PEAK_REQUESTERS);
+        try {
+            requestConcurrently(PEAK_REQUESTERS, requesters);
+        } finally {
+            requesters.shutdownNow();
+        }
+    }
+
+    /**
+     * Отправляет заявки пользователей 2..requesters + 1 через пул, одновременно отпуская их защёлкой,
+     * пока администратор в соседнем потоке сохраняет событие.
+     */
+    private void requestConcurrently(int requesters, ExecutorService pool) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger adminSaves = new AtomicInteger();
+        Future<?> admin = executor.submit(() -> {
+            while (running.get()) {
+                UpdateEventAdminRequest update = new UpdateEventAdminRequest();
+                update.setTitle("Концерт " + adminSaves.incrementAndGet());
+                eventService.updateAdminEvent(1L, update);
+            }
+        });
+
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> requests = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (long userId = 2; userId <= requesters + 1; userId++) {
+            long requesterId = userId;
+            requests.add(pool.submit(() -> {
+                start.await();
+                try {
+                    participationRequestService.create(requesterId, 1L);
+                    confirmed.incrementAndGet();
+                } catch (ValidationException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> request : requests) {
+            request.get(120, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        admin.get(60, TimeUnit.SECONDS);
+
+        log.info("Заявок подтверждено {}, отклонено {}, сохранений события администратором {}",
+                confirmed.get(), rejected.get(), adminSaves.get());
+        assertThat(confirmed.get()).isEqualTo(LIMIT);
+        assertThat(rejected.get()).isEqualTo(requesters - LIMIT);
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = 1", Long.class))
+                .isEqualTo(LIMIT);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE event_id = 1 " +
+                "AND status = 'CONFIRMED'", Long.class)).isEqualTo(LIMIT);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void conditionalUpdateAgainstSelectForUpdate() throws Exception {
+        jdbcTemplate.update("UPDATE events SET participant_limit = 0 WHERE id = 1");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int reservations = 20000;
+
+        for (int pass = 0; pass < 2; pass++) {
+            long conditional = run(reservations, () -> transactionTemplate.executeWithoutResult(status ->
+                    eventSeatRepository.reserve(1L, 1)));
+            // Прежний способ без гонки: строка события блокируется, лимит проверяется в Java, затем UPDATE
+            long selectForUpdate = run(reservations, () -> transactionTemplate.executeWithoutResult(status -> {
+                List<Long> seats = jdbcTemplate.queryForList("SELECT participant_limit - confirmed_requests " +
+                        "FROM events WHERE id = 1 FOR UPDATE", Long.class);
+                if (!seats.isEmpty()) {
+                    jdbcTemplate.update("UPDATE events SET confirmed_requests = confirmed_requests + 1 WHERE id = 1");
+                }
+            }));
+            log.info("{} резервирований в {} потоков: условный UPDATE {} в секунду, SELECT FOR UPDATE и UPDATE {} " +
+                            "в секунду", reservations, THREADS, reservations * 1_000_000_000L / conditional,
+                    reservations * 1_000_000_000L / selectForUpdate);
+        }
+    }
+
+    private long run(int reservations, Runnable reservation) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(reservations);
+        List<Future<?>> workers = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(executor.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    reservation.run();
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(5, TimeUnit.MINUTES);
+        }
+        return System.nanoTime() - started;
+    }
+}
@@ -18,8 +18,15 @@ public class BaseClient {
 
     protected final RestTemplate rest;
 
+    protected final MediaType mediaType;
+
     public BaseClient(RestTemplate rest) {
+        this(rest, MediaType.APPLICATION_JSON);
+    }
+
+    public BaseClient(RestTemplate rest, MediaType mediaType) {
         this.rest = rest;
+        this.mediaType = mediaType;
     }
 
     protected <T> ResponseEntity<Object> post(String path, T body) {
@@ -50,8 +57,8 @@ public class BaseClient {
 
     private HttpHeaders defaultHeaders() {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.setContentType(mediaType);
+        headers.setAccept(List.of(mediaType));
 
         return headers;
     }
@@ -0,0 +1,7 @@
+package ru.practicum;
+
+public enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+}
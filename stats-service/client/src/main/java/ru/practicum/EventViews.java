@@ -0,0 +1,104 @@
+package ru.practicum;
+
+import java.util.Arrays;
+
+/**
+ * Просмотры событий по id: хэш-таблица с открытой адресацией на массивах long без упаковки ключей и значений.
+ */
+public class EventViews {
+
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private boolean stale;
+
+    public EventViews(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Возвращает число просмотров события или 0, если статистики по нему нет.
+     */
+    public long get(long eventId) {
+        int index = indexOf(keys, eventId);
+        return keys[index] == EMPTY ? 0 : values[index];
+    }
+
+    public boolean contains(long eventId) {
+        return keys[indexOf(keys, eventId)] != EMPTY;
+    }
+
+    /**
+     * Прибавляет просмотры к событию: одно событие может прийти в статистике от нескольких приложений.
+     */
+    public void add(long eventId, long hits) {
+        if (eventId < 0) {
+            throw new IllegalArgumentException("Некорректный id события: " + eventId);
+        }
+        int index = indexOf(keys, eventId);
+        if (keys[index] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+                index = indexOf(keys, eventId);
+            }
+            keys[index] = eventId;
+            size++;
+        }
+        values[index] += hits;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] eventIds() {
+        long[] eventIds = new long[size];
+        int next = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                eventIds[next++] = key;
+            }
+        }
+        return eventIds;
+    }
+
+    /**
+     * Просмотры взяты из последних известных значений, потому что сервер статистики недоступен.
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void markStale() {
+        stale = true;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int indexOf(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int index = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,145 @@
+package ru.practicum;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Размыкается после failure-threshold ошибок подряд и на open-duration-ms отклоняет вызовы
+ * сервера статистики без обращения к нему. Затем пропускает один пробный вызов: успех замыкает цепь,
+ * ошибка снова размыкает.
+ */
+@Slf4j
+@Component
+public class StatsCircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    private volatile CircuitState state = CircuitState.CLOSED;
+    private volatile long openedAt;
+    private int consecutiveFailures;
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+
+    private final Counter rejectedCounter;
+    private final Counter failureCounter;
+
+    public StatsCircuitBreaker(MeterRegistry meterRegistry,
+                               @Value("${stats-server.breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${stats-server.breaker.open-duration-ms:10000}") long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+
+        Gauge.builder("stats.client.breaker.state", this, breaker -> breaker.state.ordinal())
+                .description("Состояние цепи: 0 — замкнута, 1 — разомкнута, 2 — пробный вызов")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("stats.client.breaker.rejected")
+                .description("Вызовы, отклонённые разомкнутой цепью")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("stats.client.breaker.failures")
+                .description("Ошибки вызовов сервера статистики")
+                .register(meterRegistry);
+    }
+
+    public CircuitState getState() {
+        return state;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        boolean probe = acquire();
+        try {
+            T result = call.get();
+            onSuccess(probe);
+            return result;
+        } catch (RuntimeException | Error e) {
+            onFailure(probe, e);
+            throw e;
+        } finally {
+            release(probe);
+        }
+    }
+
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        boolean probe;
+        CompletableFuture<T> future;
+        try {
+            probe = acquire();
+        } catch (StatsUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            future = call.get();
+        } catch (RuntimeException | Error e) {
+            onFailure(probe, e);
+            release(probe);
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, error) -> {
+            try {
+                if (error == null) {
+                    onSuccess(probe);
+                } else {
+                    onFailure(probe, error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            } finally {
+                release(probe);
+            }
+        });
+    }
+
+    private boolean acquire() {
+        if (state == CircuitState.CLOSED) {
+            return false;
+        }
+        if (System.currentTimeMillis() - openedAt >= openDurationMs && probeInFlight.compareAndSet(false, true)) {
+            state = CircuitState.HALF_OPEN;
+            return true;
+        }
+        rejectedCounter.increment();
+        throw new StatsUnavailableException("Сервер статистики недоступен, цепь разомкнута");
+    }
+
+    private synchronized void onSuccess(boolean probe) {
+        consecutiveFailures = 0;
+        if (probe) {
+            state = CircuitState.CLOSED;
+        }
+    }
+
+    /**
+     * Состояние меняет только пробный вызов или ошибка при замкнутой цепи. Обычный вызов, начатый
+     * до размыкания и завершившийся ошибкой позже, не продлевает размыкание и не сбрасывает пробу.
+     */
+    private synchronized void onFailure(boolean probe, Throwable e) {
+        failureCounter.increment();
+        if (!probe && state != CircuitState.CLOSED) {
+            return;
+        }
+        if (probe || ++consecutiveFailures >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            if (state == CircuitState.CLOSED) {
+                log.warn("Цепь к серверу статистики разомкнута: {}", e.getMessage());
+            }
+            state = CircuitState.OPEN;
+        }
+    }
+
+    /**
+     * Пробу освобождает только вызов, который её занял, и только после того, как он перевёл цепь
+     * в замкнутое или разомкнутое состояние.
+     */
+    private void release(boolean probe) {
+        if (probe) {
+            probeInFlight.set(false);
+        }
+    }
+}
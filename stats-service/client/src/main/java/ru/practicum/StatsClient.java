@@ -1,37 +1,125 @@
 package ru.practicum;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 @Service
 public class StatsClient extends BaseClient {
 
     private static final String PATCH = "/stats?start={start}&end={end}&uris={uris}&unique={unique}";
 
+    private static final String PATCH_EVENT_VIEWS = PATCH + "&approximate={approximate}";
+
+    private static final String PATCH_ALL_URIS = "/stats?start={start}&end={end}&unique={unique}";
+
+    private static final String EVENT_URI_PREFIX = "/events/";
+
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private final JsonFactory jsonFactory;
+
+    private final StatsCircuitBreaker circuitBreaker;
+
+    private final StatsHttpClients httpClients;
+
+    private final boolean asyncTransport;
+
+    private final Duration readTimeout;
+
     @Autowired
-    public StatsClient(@Value("${stats-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public StatsClient(@Value("${stats-server.url}") String serverUrl,
+                       @Value("${stats-server.wire-format:json}") String wireFormat,
+                       @Value("${stats-server.transport:blocking}") String transport,
+                       @Value("${stats-server.connect-timeout-ms:500}") long connectTimeoutMs,
+                       @Value("${stats-server.read-timeout-ms:2000}") long readTimeoutMs,
+                       @Value("${stats-server.pool.acquire-timeout-ms:200}") int acquireTimeoutMs,
+                       RestTemplateBuilder builder,
+                       StatsCircuitBreaker circuitBreaker,
+                       StatsHttpClients httpClients) {
         super(
-                builder
+                smile(wireFormat, builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> {
+                            HttpComponentsClientHttpRequestFactory requestFactory =
+                                    new HttpComponentsClientHttpRequestFactory(httpClients.getPooledClient());
+                            requestFactory.setConnectionRequestTimeout(acquireTimeoutMs);
+                            return requestFactory;
+                        })
+                        .setConnectTimeout(Duration.ofMillis(connectTimeoutMs))
+                        .setReadTimeout(Duration.ofMillis(readTimeoutMs))
+                        .build()),
+                isSmile(wireFormat) ? MediaType.parseMediaType(StatsSmile.MEDIA_TYPE) : MediaType.APPLICATION_JSON
         );
+        this.jsonFactory = isSmile(wireFormat) ? StatsSmile.createMapper().getFactory() : new JsonFactory();
+        this.circuitBreaker = circuitBreaker;
+        this.httpClients = httpClients;
+        this.asyncTransport = "async".equalsIgnoreCase(transport);
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+    }
+
+    private static boolean isSmile(String wireFormat) {
+        return "smile".equalsIgnoreCase(wireFormat);
+    }
+
+    /**
+     * Ставит Smile-конвертер в начало списка, чтобы он обрабатывал ответы вместо стандартного.
+     */
+    private static RestTemplate smile(String wireFormat, RestTemplate rest) {
+        if (isSmile(wireFormat)) {
+            rest.getMessageConverters().add(0, new MappingJackson2SmileHttpMessageConverter(StatsSmile.createMapper()));
+        }
+        return rest;
+    }
+
+    /**
+     * Ответ 5xx считается ошибкой сервера статистики и размыкает цепь наравне с таймаутом.
+     */
+    private static ResponseEntity<Object> failOnServerError(ResponseEntity<Object> response) {
+        if (response.getStatusCode().is5xxServerError()) {
+            throw new StatsUnavailableException("Сервер статистики ответил " + response.getStatusCode());
+        }
+        return response;
     }
 
     public ResponseEntity<Object> create(EndpointHitDto endpointHitDto) {
-        return post("/hit", endpointHitDto);
+        return circuitBreaker.call(() -> failOnServerError(post("/hit", endpointHitDto)));
+    }
+
+    public ResponseEntity<Object> createAll(List<EndpointHitDto> endpointHitDtos) {
+        return circuitBreaker.call(() -> failOnServerError(post("/hits", endpointHitDtos)));
     }
 
     public ResponseEntity<Object> getStatistic(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
@@ -41,6 +129,190 @@ public class StatsClient extends BaseClient {
                 "uris", String.join(",", uris),
                 "unique", unique
         );
-        return get(PATCH, parameters);
+        return circuitBreaker.call(() -> failOnServerError(get(PATCH, parameters)));
+    }
+
+    /**
+     * Запрашивает просмотры событий и разбирает ответ потоково, сразу в {@link EventViews},
+     * без промежуточных {@link ViewStatsDto}. На ошибку запроса (4xx) просмотров нет; таймауты, 5xx
+     * и разомкнутая цепь приводят к исключению.
+     */
+    public EventViews getEventViews(LocalDateTime start, LocalDateTime end, Collection<Long> eventIds, Boolean unique) {
+        return getEventViews(start, end, eventIds, unique, false);
+    }
+
+    /**
+     * С approximate=true уникальные просмотры оцениваются сервером по HyperLogLog-скетчам суток и часов
+     * вместо COUNT(DISTINCT ip) по всем хитам интервала.
+     */
+    public EventViews getEventViews(LocalDateTime start, LocalDateTime end, Collection<Long> eventIds, Boolean unique,
+                                    boolean approximate) {
+        EventViews views = new EventViews(eventIds.size());
+        if (eventIds.isEmpty()) {
+            return views;
+        }
+
+        Map<String, Object> parameters = eventViewsParameters(start, end, eventIds, unique, approximate);
+        return circuitBreaker.call(() -> {
+            try {
+                rest.execute(PATCH_EVENT_VIEWS, HttpMethod.GET,
+                        request -> request.getHeaders().setAccept(List.of(mediaType)),
+                        response -> {
+                            readEventViews(response.getBody(), views);
+                            return views;
+                        },
+                        parameters);
+            } catch (HttpClientErrorException e) {
+                log.error("HTTP Status Code" + e.getStatusCode() + " Message: " + e.getMessage());
+            }
+            return views;
+        });
+    }
+
+    /**
+     * Возвращает неуникальные хиты за [start, end] по всем событиям, у которых они есть.
+     * Нужен, чтобы узнать, у каких событий изменились просмотры, не перечисляя их заранее.
+     */
+    public EventViews getEventHits(LocalDateTime start, LocalDateTime end) {
+        EventViews hits = new EventViews(16);
+        Map<String, Object> parameters = Map.of(
+                "start", start.format(formatter),
+                "end", end.format(formatter),
+                "unique", false
+        );
+        return circuitBreaker.call(() -> rest.execute(PATCH_ALL_URIS, HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(mediaType)),
+                response -> {
+                    readEventViews(response.getBody(), hits);
+                    return hits;
+                },
+                parameters));
+    }
+
+    /**
+     * То же, что {@link #getEventViews}, но не занимает поток вызывающего: при stats-server.transport=async
+     * запрос уходит через неблокирующий HTTP-клиент JDK. При блокирующем транспорте запрос выполняется сразу,
+     * а результат возвращается завершённым future.
+     */
+    public CompletableFuture<EventViews> getEventViewsAsync(LocalDateTime start, LocalDateTime end,
+                                                            Collection<Long> eventIds, Boolean unique) {
+        return getEventViewsAsync(start, end, eventIds, unique, false);
+    }
+
+    public CompletableFuture<EventViews> getEventViewsAsync(LocalDateTime start, LocalDateTime end,
+                                                            Collection<Long> eventIds, Boolean unique,
+                                                            boolean approximate) {
+        if (!asyncTransport) {
+            try {
+                return CompletableFuture.completedFuture(getEventViews(start, end, eventIds, unique, approximate));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (eventIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new EventViews(0));
+        }
+
+        URI uri = rest.getUriTemplateHandler().expand(PATCH_EVENT_VIEWS,
+                eventViewsParameters(start, end, eventIds, unique, approximate));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header(HttpHeaders.ACCEPT, mediaType.toString())
+                .GET()
+                .build();
+        AtomicInteger inFlight = httpClients.getAsyncInFlight();
+
+        return circuitBreaker.callAsync(() -> {
+            inFlight.incrementAndGet();
+            return httpClients.getAsyncClient().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> inFlight.decrementAndGet())
+                    .thenApply(response -> {
+                        EventViews views = new EventViews(eventIds.size());
+                        if (response.statusCode() >= 500) {
+                            throw new StatsUnavailableException("Сервер статистики ответил " + response.statusCode());
+                        }
+                        if (response.statusCode() >= 400) {
+                            log.error("HTTP Status Code" + response.statusCode());
+                            return views;
+                        }
+                        try {
+                            readEventViews(new ByteArrayInputStream(response.body()), views);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return views;
+                    });
+        });
+    }
+
+    private Map<String, Object> eventViewsParameters(LocalDateTime start, LocalDateTime end,
+                                                     Collection<Long> eventIds, Boolean unique,
+                                                     boolean approximate) {
+        StringBuilder uris = new StringBuilder(eventIds.size() * (EVENT_URI_PREFIX.length() + 8));
+        for (Long eventId : eventIds) {
+            if (uris.length() > 0) {
+                uris.append(',');
+            }
+            uris.append(EVENT_URI_PREFIX).append(eventId);
+        }
+        return Map.of(
+                "start", start.format(formatter),
+                "end", end.format(formatter),
+                "uris", uris.toString(),
+                "unique", unique,
+                "approximate", approximate
+        );
+    }
+
+    void readEventViews(InputStream body, EventViews views) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Ожидался массив статистики");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                long eventId = -1;
+                long hits = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if ("uri".equals(field) && value == JsonToken.VALUE_STRING) {
+                        eventId = parseEventId(parser.getTextCharacters(), parser.getTextOffset(),
+                                parser.getTextLength());
+                    } else if ("hits".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                        hits = parser.getLongValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (eventId >= 0) {
+                    views.add(eventId, hits);
+                }
+            }
+        }
+    }
+
+    /**
+     * Разбирает id из uri вида /events/{id} прямо в буфере парсера, не создавая строк.
+     * Возвращает -1, если uri другого вида.
+     */
+    private static long parseEventId(char[] chars, int offset, int length) {
+        int prefixLength = EVENT_URI_PREFIX.length();
+        if (length <= prefixLength || length - prefixLength > 18) {
+            return -1;
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            if (chars[offset + i] != EVENT_URI_PREFIX.charAt(i)) {
+                return -1;
+            }
+        }
+        long eventId = 0;
+        for (int i = offset + prefixLength; i < offset + length; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            eventId = eventId * 10 + (c - '0');
+        }
+        return eventId;
     }
 }
@@ -0,0 +1,181 @@
+package ru.practicum;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Записывает хиты в stats-server. В асинхронном режиме хиты складываются в ограниченную очередь,
+ * а фоновый поток отправляет их пачками по размеру или по таймеру.
+ */
+@Slf4j
+@Service
+public class StatsHitRecorder {
+
+    private final StatsClient statsClient;
+    private final boolean async;
+    private final int batchSize;
+    private final HitOverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final double sampleRate;
+
+    private final BlockingQueue<EndpointHitDto> queue;
+    private final ScheduledExecutorService sender;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    public StatsHitRecorder(StatsClient statsClient,
+                            MeterRegistry meterRegistry,
+                            @Value("${stats-server.hits.async:false}") boolean async,
+                            @Value("${stats-server.hits.queue-capacity:10000}") int queueCapacity,
+                            @Value("${stats-server.hits.batch-size:500}") int batchSize,
+                            @Value("${stats-server.hits.flush-interval-ms:1000}") long flushIntervalMs,
+                            @Value("${stats-server.hits.overflow-policy:DROP_OLDEST}") HitOverflowPolicy overflowPolicy,
+                            @Value("${stats-server.hits.block-timeout-ms:50}") long blockTimeoutMs,
+                            @Value("${stats-server.hits.sample-rate:0.1}") double sampleRate) {
+        this.statsClient = statsClient;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.sampleRate = sampleRate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("stats.client.hits.queue.depth", queue, BlockingQueue::size)
+                .description("Количество хитов, ожидающих отправки")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("stats.client.hits.dropped")
+                .description("Хиты, отброшенные при переполнении очереди")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("stats.client.hits.failed")
+                .description("Хиты, которые не удалось отправить")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stats.client.hits.flush")
+                .description("Время отправки одной пачки хитов")
+                .register(meterRegistry);
+
+        if (async) {
+            this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "stats-hit-sender");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sender.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.sender = null;
+        }
+    }
+
+    public void record(EndpointHitDto endpointHitDto) {
+        if (!async) {
+            // Недоступность статистики не должна ронять запрос пользователя
+            try {
+                statsClient.create(endpointHitDto);
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                log.warn("Не удалось отправить хит в stats-server: {}", e.getMessage());
+            }
+            return;
+        }
+
+        if (sender.isShutdown()) {
+            // Запрос, застигнутый остановкой сервиса: очередь уже разобрана последней отправкой
+            droppedCounter.increment();
+            log.debug("Хит {} отброшен: отправка хитов остановлена", endpointHitDto.getUri());
+            return;
+        }
+        if (enqueue(endpointHitDto) && queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                sender.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+                log.warn("Отправка хитов остановлена, пачка из очереди не будет отправлена");
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sender != null) {
+            sender.shutdown();
+            flush();
+        }
+    }
+
+    private boolean enqueue(EndpointHitDto endpointHitDto) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (queue.offer(endpointHitDto, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                droppedCounter.increment();
+                return false;
+            case SAMPLE:
+                if (queue.offer(endpointHitDto)) {
+                    return true;
+                }
+                if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                    return replaceOldest(endpointHitDto);
+                }
+                droppedCounter.increment();
+                return false;
+            case DROP_OLDEST:
+            default:
+                return queue.offer(endpointHitDto) || replaceOldest(endpointHitDto);
+        }
+    }
+
+    private boolean replaceOldest(EndpointHitDto endpointHitDto) {
+        do {
+            if (queue.poll() != null) {
+                droppedCounter.increment();
+            }
+        } while (!queue.offer(endpointHitDto));
+        return true;
+    }
+
+    private synchronized void flush() {
+        flushRequested.set(false);
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                flushTimer.record(() -> send(batch));
+            } catch (RuntimeException e) {
+                failedCounter.increment(batch.size());
+                log.error("Не удалось отправить {} хитов в stats-server: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void send(List<EndpointHitDto> batch) {
+        ResponseEntity<Object> response = statsClient.createAll(batch);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("stats-server ответил " + response.getStatusCode());
+        }
+    }
+}
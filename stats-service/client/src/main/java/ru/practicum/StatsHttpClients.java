@@ -0,0 +1,117 @@
+package ru.practicum;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP-клиенты для сервера статистики: блокирующий Apache HttpClient с пулом keep-alive соединений
+ * и неблокирующий {@link HttpClient} из JDK для асинхронного транспорта.
+ */
+@Component
+public class StatsHttpClients {
+
+    private final CloseableHttpClient pooledClient;
+    private final HttpClient asyncClient;
+    private final AtomicInteger asyncInFlight = new AtomicInteger();
+
+    public StatsHttpClients(MeterRegistry meterRegistry,
+                            @Value("${stats-server.connect-timeout-ms:500}") long connectTimeoutMs,
+                            @Value("${stats-server.pool.max-total:50}") int maxTotal,
+                            @Value("${stats-server.pool.max-per-route:50}") int maxPerRoute,
+                            @Value("${stats-server.pool.keep-alive-ms:30000}") long keepAliveMs,
+                            @Value("${stats-server.pool.idle-evict-ms:60000}") long idleEvictMs) {
+        Timer waitTimer = Timer.builder("stats.client.pool.wait")
+                .description("Ожидание свободного соединения в пуле")
+                .register(meterRegistry);
+        PoolingHttpClientConnectionManager connectionManager = new TimedConnectionManager(waitTimer);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "stats-server").bindTo(meterRegistry);
+
+        this.pooledClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMs) : keepAliveMs;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictMs, TimeUnit.MILLISECONDS)
+                .build();
+
+        this.asyncClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        Gauge.builder("stats.client.async.in-flight", asyncInFlight, AtomicInteger::get)
+                .description("Асинхронные запросы к серверу статистики в полёте")
+                .register(meterRegistry);
+    }
+
+    public CloseableHttpClient getPooledClient() {
+        return pooledClient;
+    }
+
+    public HttpClient getAsyncClient() {
+        return asyncClient;
+    }
+
+    AtomicInteger getAsyncInFlight() {
+        return asyncInFlight;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        pooledClient.close();
+    }
+
+    private static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer waitTimer;
+
+        TimedConnectionManager(Timer waitTimer) {
+            this.waitTimer = waitTimer;
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ConnectionRequest request = super.requestConnection(route, state);
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit unit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.get(timeout, unit);
+                    } finally {
+                        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Объединяет одновременные запросы просмотров: для каждого события в полёте не больше одного запроса
+ * к серверу статистики, остальные вызывающие ждут его результата.
+ * <p>
+ * Начало интервала у разных вызывающих может отличаться, но оно не позже создания события,
+ * поэтому число просмотров от него не зависит.
+ * <p>
+ * Запрос идёт через {@link StatsClient#getEventViewsAsync}, то есть через транспорт из stats-server.transport.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatsRequestCoalescer {
+
+    private final StatsClient statsClient;
+
+    private final Map<FlightKey, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
+    public EventViews getEventViews(LocalDateTime start, Collection<Long> eventIds, boolean unique) {
+        Map<Long, CompletableFuture<Long>> owned = new HashMap<>();
+        Map<Long, CompletableFuture<Long>> joined = new HashMap<>();
+        for (Long eventId : eventIds) {
+            CompletableFuture<Long> flight = new CompletableFuture<>();
+            CompletableFuture<Long> existing = inFlight.putIfAbsent(new FlightKey(eventId, unique), flight);
+            if (existing == null) {
+                owned.put(eventId, flight);
+            } else {
+                joined.put(eventId, existing);
+            }
+        }
+
+        EventViews views = new EventViews(eventIds.size());
+        if (!owned.isEmpty()) {
+            fly(start, owned, unique, views);
+        }
+        joined.forEach((eventId, flight) -> views.add(eventId, await(flight)));
+        return views;
+    }
+
+    private void fly(LocalDateTime start, Map<Long, CompletableFuture<Long>> owned, boolean unique,
+                     EventViews views) {
+        try {
+            EventViews loaded = await(statsClient.getEventViewsAsync(start, LocalDateTime.now(), owned.keySet(),
+                    unique));
+            owned.forEach((eventId, flight) -> {
+                long hits = loaded.get(eventId);
+                views.add(eventId, hits);
+                flight.complete(hits);
+            });
+        } catch (RuntimeException | Error e) {
+            owned.values().forEach(flight -> flight.completeExceptionally(e));
+            throw e;
+        } finally {
+            owned.forEach((eventId, flight) -> inFlight.remove(new FlightKey(eventId, unique), flight));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class FlightKey {
+        private final long eventId;
+        private final boolean unique;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет EventViews против HashMap и сравнивает разбор ответа статистики в EventViews с прежним путём
+ * через List&lt;ViewStatsDto&gt; и HashMap&lt;Long, Long&gt;. Замер времени запускается с -Dbenchmark=true.
+ */
+@Slf4j
+class EventViewsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void behavesLikeHashMap() {
+        Random random = new Random(42);
+        EventViews views = new EventViews(4);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            long eventId = random.nextInt(5000);
+            long hits = random.nextInt(100);
+            views.add(eventId, hits);
+            expected.merge(eventId, hits, Long::sum);
+        }
+
+        assertThat(views.size()).isEqualTo(expected.size());
+        expected.forEach((eventId, hits) -> assertThat(views.get(eventId)).isEqualTo(hits));
+        assertThat(views.contains(5001)).isFalse();
+        assertThat(views.get(5001)).isZero();
+        assertThat(Arrays.stream(views.eventIds()).boxed().collect(Collectors.toSet()))
+                .isEqualTo(expected.keySet());
+    }
+
+    @Test
+    void readsStatsResponseSkippingForeignUris() throws IOException {
+        byte[] body = ("[{\"app\":\"ewm-main-service\",\"uri\":\"/events/7\",\"hits\":5}," +
+                "{\"app\":\"other\",\"uri\":\"/events/7\",\"hits\":2}," +
+                "{\"app\":\"ewm-main-service\",\"uri\":\"/events\",\"hits\":100}," +
+                "{\"app\":\"ewm-main-service\",\"uri\":\"/events/12abc\",\"hits\":100}," +
+                "{\"app\":\"ewm-main-service\",\"uri\":\"/events/12\",\"hits\":1}]").getBytes();
+        EventViews views = new EventViews(2);
+
+        statsClient().readEventViews(new ByteArrayInputStream(body), views);
+
+        assertThat(views.size()).isEqualTo(2);
+        assertThat(views.get(7)).isEqualTo(7);
+        assertThat(views.get(12)).isEqualTo(1);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void parseTime() throws IOException {
+        StatsClient statsClient = statsClient();
+        byte[] body = objectMapper.writeValueAsBytes(IntStream.range(0, 1000)
+                .mapToObj(i -> new ViewStatsDto("ewm-main-service", "/events/" + i, 1000L + i))
+                .collect(Collectors.toList()));
+        int rounds = 5000;
+
+        for (int pass = 0; pass < 2; pass++) {
+            long started = System.nanoTime();
+            long checksum = 0;
+            for (int i = 0; i < rounds; i++) {
+                // Прежний путь: тело как Object, convertValue в ViewStatsDto, разбор id из строки
+                List<ViewStatsDto> stats = objectMapper.convertValue(objectMapper.readValue(body, Object.class),
+                        new TypeReference<List<ViewStatsDto>>() {
+                        });
+                Map<Long, Long> views = new HashMap<>();
+                for (ViewStatsDto dto : stats) {
+                    views.merge(Long.parseLong(dto.getUri().substring("/events/".length())), dto.getHits(), Long::sum);
+                }
+                checksum += views.get(500L);
+            }
+            long legacy = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                EventViews views = new EventViews(1000);
+                statsClient.readEventViews(new ByteArrayInputStream(body), views);
+                checksum += views.get(500);
+            }
+            long streaming = System.nanoTime() - started;
+
+            log.info("Ответ на 1000 событий: ViewStatsDto и HashMap {} мкс, EventViews {} мкс (контроль {})",
+                    legacy / rounds / 1000, streaming / rounds / 1000, checksum);
+        }
+    }
+
+    private static StatsClient statsClient() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new StatsClient("http://localhost:9090", "json", "blocking", 500, 2000, 200,
+                new RestTemplateBuilder(), new StatsCircuitBreaker(meterRegistry, 5, 10000),
+                new StatsHttpClients(meterRegistry, 500, 50, 50, 30000, 60000));
+    }
+}
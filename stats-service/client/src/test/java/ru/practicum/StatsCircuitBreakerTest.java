@@ -0,0 +1,131 @@
+package ru.practicum;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatsCircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MS = 50;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void opensAfterThresholdAndClosesAfterSuccessfulProbe() throws InterruptedException {
+        StatsCircuitBreaker breaker = breaker(3);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> breaker.call(StatsCircuitBreakerTest::fail))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThatThrownBy(() -> breaker.call(() -> "ok")).isInstanceOf(StatsUnavailableException.class);
+
+        Thread.sleep(OPEN_DURATION_MS + 10);
+        assertThat(breaker.call(() -> "ok")).isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void errorInProbeReleasesIt() throws InterruptedException {
+        StatsCircuitBreaker breaker = openBreaker();
+
+        assertThatThrownBy(() -> breaker.call(() -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+
+        Thread.sleep(OPEN_DURATION_MS + 10);
+        assertThat(breaker.call(() -> "ok")).isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void lateFailureOfOrdinaryCallDoesNotReleaseProbe() throws Exception {
+        StatsCircuitBreaker breaker = breaker(1);
+        CountDownLatch ordinaryStarted = new CountDownLatch(1);
+        CountDownLatch releaseOrdinary = new CountDownLatch(1);
+        CompletableFuture<String> ordinary = CompletableFuture.supplyAsync(() -> breaker.call(() -> {
+            ordinaryStarted.countDown();
+            await(releaseOrdinary);
+            return fail();
+        }), executor);
+        // Цепь размыкается, только когда обычный вызов уже прошёл через неё
+        assertThat(ordinaryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> breaker.call(StatsCircuitBreakerTest::fail)).isInstanceOf(IllegalStateException.class);
+        Thread.sleep(OPEN_DURATION_MS + 10);
+
+        CountDownLatch probeStarted = new CountDownLatch(1);
+        CountDownLatch releaseProbe = new CountDownLatch(1);
+        CompletableFuture<String> probe = CompletableFuture.supplyAsync(() -> breaker.call(() -> {
+            probeStarted.countDown();
+            await(releaseProbe);
+            return "ok";
+        }), executor);
+        assertThat(probeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        releaseOrdinary.countDown();
+        assertThatThrownBy(() -> ordinary.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        Thread.sleep(OPEN_DURATION_MS + 10);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+        assertThatThrownBy(() -> breaker.call(() -> "second probe")).isInstanceOf(StatsUnavailableException.class);
+
+        releaseProbe.countDown();
+        assertThat(probe.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void asyncProbeFailureReopensAndReleasesProbe() throws Exception {
+        StatsCircuitBreaker breaker = openBreaker();
+
+        CompletableFuture<String> failed = breaker.callAsync(() -> CompletableFuture.failedFuture(new IllegalStateException()));
+
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        Thread.sleep(OPEN_DURATION_MS + 10);
+        assertThat(breaker.callAsync(() -> CompletableFuture.completedFuture("ok")).get(5, TimeUnit.SECONDS))
+                .isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    /**
+     * Цепь, которая разомкнулась и уже готова пропустить пробный вызов.
+     */
+    private static StatsCircuitBreaker openBreaker() throws InterruptedException {
+        StatsCircuitBreaker breaker = breaker(1);
+        assertThatThrownBy(() -> breaker.call(StatsCircuitBreakerTest::fail)).isInstanceOf(IllegalStateException.class);
+        Thread.sleep(OPEN_DURATION_MS + 10);
+        return breaker;
+    }
+
+    private static StatsCircuitBreaker breaker(int failureThreshold) {
+        return new StatsCircuitBreaker(new SimpleMeterRegistry(), failureThreshold, OPEN_DURATION_MS);
+    }
+
+    private static String fail() {
+        throw new IllegalStateException("Сервер статистики не отвечает");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
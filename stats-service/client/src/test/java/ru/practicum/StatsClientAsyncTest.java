@@ -0,0 +1,92 @@
+package ru.practicum;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что при stats-server.transport=async просмотры запрашиваются неблокирующим клиентом JDK
+ * и с переданным approximate.
+ */
+class StatsClientAsyncTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final BlockingQueue<Map<String, String>> requests = new LinkedBlockingQueue<>();
+    private HttpServer server;
+    private StatsHttpClients httpClients;
+    private StatsClient statsClient;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/stats", exchange -> {
+            requests.add(Map.of(
+                    "query", exchange.getRequestURI().getQuery(),
+                    "agent", exchange.getRequestHeaders().getFirst("User-Agent")));
+            byte[] body = "[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"hits\":3}]"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        httpClients = new StatsHttpClients(meterRegistry, 500, 50, 50, 30000, 60000);
+        statsClient = new StatsClient("http://localhost:" + server.getAddress().getPort(), "json", "async",
+                500, 2000, 200, new RestTemplateBuilder(), new StatsCircuitBreaker(meterRegistry, 5, 10000),
+                httpClients);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.stop(0);
+        httpClients.close();
+    }
+
+    @Test
+    void asyncViewsForwardApproximate() throws Exception {
+        EventViews views = statsClient.getEventViewsAsync(START, START.plusDays(1), List.of(1L, 2L), true, true)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(views.get(1)).isEqualTo(3);
+        assertThat(views.get(2)).isZero();
+        Map<String, String> request = requests.poll(5, TimeUnit.SECONDS);
+        assertThat(request.get("query")).contains("unique=true").contains("approximate=true");
+        assertThat(request.get("agent")).startsWith("Java-http-client");
+    }
+
+    @Test
+    void coalescedViewsGoThroughAsyncTransport() throws Exception {
+        StatsRequestCoalescer coalescer = new StatsRequestCoalescer(statsClient);
+
+        EventViews views = coalescer.getEventViews(START, Set.of(1L), true);
+
+        assertThat(views.get(1)).isEqualTo(3);
+        Map<String, String> request = requests.poll(5, TimeUnit.SECONDS);
+        assertThat(request.get("query")).contains("approximate=false");
+        assertThat(request.get("agent")).startsWith("Java-http-client");
+    }
+}
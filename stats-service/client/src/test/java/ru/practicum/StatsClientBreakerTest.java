@@ -0,0 +1,127 @@
+package ru.practicum;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет цепь вместе с клиентом на заглушке сервера статистики, которая отвечает медленно или с ошибкой.
+ */
+class StatsClientBreakerTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_DURATION_MS = 300;
+    private static final long READ_TIMEOUT_MS = 200;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Behaviour behaviour = Behaviour.OK;
+    private HttpServer server;
+    private StatsCircuitBreaker breaker;
+    private StatsClient statsClient;
+
+    private enum Behaviour { OK, SLOW, ERROR }
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/stats", exchange -> {
+            requests.incrementAndGet();
+            Behaviour current = behaviour;
+            if (current == Behaviour.SLOW) {
+                sleep(READ_TIMEOUT_MS * 3);
+            }
+            byte[] body = "[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"hits\":3}]"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(current == Behaviour.ERROR ? 500 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        breaker = new StatsCircuitBreaker(meterRegistry, FAILURE_THRESHOLD, OPEN_DURATION_MS);
+        statsClient = new StatsClient("http://localhost:" + server.getAddress().getPort(), "json", "blocking",
+                500, READ_TIMEOUT_MS, 200, new RestTemplateBuilder(), breaker,
+                new StatsHttpClients(meterRegistry, 500, 50, 50, 30000, 60000));
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void timeoutsOpenCircuitAndLaterCallsDoNotReachServer() {
+        behaviour = Behaviour.SLOW;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(this::getViews).isNotInstanceOf(StatsUnavailableException.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThatThrownBy(this::getViews).isInstanceOf(StatsUnavailableException.class);
+        assertThat(requests.get()).isEqualTo(FAILURE_THRESHOLD);
+    }
+
+    @Test
+    void serverErrorsOpenCircuitAndSuccessfulProbeClosesIt() {
+        behaviour = Behaviour.ERROR;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(this::getViews).isNotInstanceOf(StatsUnavailableException.class);
+        }
+        assertThatThrownBy(this::getViews).isInstanceOf(StatsUnavailableException.class);
+
+        behaviour = Behaviour.OK;
+        sleep(OPEN_DURATION_MS + 50);
+
+        assertThat(getViews().get(1)).isEqualTo(3);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+        assertThat(requests.get()).isEqualTo(FAILURE_THRESHOLD + 1);
+    }
+
+    @Test
+    void failedProbeReopensCircuit() {
+        behaviour = Behaviour.ERROR;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(this::getViews).isNotInstanceOf(StatsUnavailableException.class);
+        }
+        sleep(OPEN_DURATION_MS + 50);
+
+        behaviour = Behaviour.SLOW;
+        assertThatThrownBy(this::getViews).isNotInstanceOf(StatsUnavailableException.class);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThatThrownBy(this::getViews).isInstanceOf(StatsUnavailableException.class);
+        assertThat(requests.get()).isEqualTo(FAILURE_THRESHOLD + 1);
+    }
+
+    private EventViews getViews() {
+        return statsClient.getEventViews(START, START.plusDays(1), List.of(1L), true);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
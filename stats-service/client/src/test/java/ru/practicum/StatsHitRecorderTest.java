@@ -0,0 +1,70 @@
+package ru.practicum;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsHitRecorderTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    private final StatsClient statsClient = mock(StatsClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatsHitRecorder recorder = new StatsHitRecorder(statsClient, meterRegistry, true, 100, BATCH_SIZE,
+            60_000, HitOverflowPolicy.DROP_OLDEST, 50, 0.1);
+
+    @AfterEach
+    void shutdown() {
+        recorder.shutdown();
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTimer() throws InterruptedException {
+        // Пачка переиспользуется после отправки, поэтому запоминается её копия
+        BlockingQueue<List<EndpointHitDto>> sent = new LinkedBlockingQueue<>();
+        when(statsClient.createAll(anyList())).thenAnswer(invocation -> {
+            sent.add(new ArrayList<>(invocation.<List<EndpointHitDto>>getArgument(0)));
+            return ResponseEntity.ok().build();
+        });
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            recorder.record(hit(i));
+        }
+
+        assertThat(sent.poll(5, TimeUnit.SECONDS)).containsExactly(hit(0), hit(1), hit(2));
+    }
+
+    @Test
+    void hitRecordedAfterShutdownIsDroppedWithoutError() {
+        recorder.shutdown();
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int n = i;
+            assertThatCode(() -> recorder.record(hit(n))).doesNotThrowAnyException();
+        }
+
+        assertThat(meterRegistry.counter("stats.client.hits.dropped").count()).isEqualTo(BATCH_SIZE);
+        verify(statsClient, never()).createAll(anyList());
+    }
+
+    private static EndpointHitDto hit(int i) {
+        return new EndpointHitDto("ewm-main-service", "/events/" + i, "192.168.0.1",
+                LocalDateTime.of(2026, 1, 1, 0, 0));
+    }
+}
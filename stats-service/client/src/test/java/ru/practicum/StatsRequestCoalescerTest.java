@@ -0,0 +1,112 @@
+package ru.practicum;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsRequestCoalescerTest {
+
+    private static final int CALLERS = 50;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final StatsClient statsClient = mock(StatsClient.class);
+    private final StatsRequestCoalescer coalescer = new StatsRequestCoalescer(statsClient);
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch called = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersForOneEventMakeSingleRequest() throws Exception {
+        when(statsClient.getEventViewsAsync(any(), any(), anyCollection(), anyBoolean())).thenAnswer(invocation -> {
+            called.countDown();
+            release.await();
+            EventViews views = new EventViews(1);
+            views.add(7, 42);
+            return CompletableFuture.completedFuture(views);
+        });
+
+        List<Future<EventViews>> results = callConcurrently();
+        release.countDown();
+
+        for (Future<EventViews> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).get(7)).isEqualTo(42);
+        }
+        verify(statsClient, times(1)).getEventViewsAsync(eq(START), any(), eq(Set.of(7L)), eq(true));
+    }
+
+    @Test
+    void failedRequestFailsEveryWaiterAndIsNotCached() throws Exception {
+        when(statsClient.getEventViewsAsync(any(), any(), anyCollection(), anyBoolean()))
+                .thenAnswer(invocation -> {
+                    called.countDown();
+                    release.await();
+                    return CompletableFuture.failedFuture(
+                            new StatsUnavailableException("Сервер статистики недоступен"));
+                })
+                .thenAnswer(invocation -> {
+                    EventViews views = new EventViews(1);
+                    views.add(7, 1);
+                    return CompletableFuture.completedFuture(views);
+                });
+
+        List<Future<EventViews>> results = callConcurrently();
+        release.countDown();
+
+        for (Future<EventViews> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(StatsUnavailableException.class);
+        }
+        assertThat(coalescer.getEventViews(START, Set.of(7L), true).get(7)).isEqualTo(1);
+        verify(statsClient, times(2)).getEventViewsAsync(eq(START), any(), eq(Set.of(7L)), eq(true));
+    }
+
+    /**
+     * Запускает первый вызов, дожидается его запроса к статистике и только потом остальные,
+     * чтобы все они застали запрос в полёте.
+     */
+    private List<Future<EventViews>> callConcurrently() throws InterruptedException {
+        List<Future<EventViews>> results = new ArrayList<>();
+        results.add(executor.submit(() -> coalescer.getEventViews(START, Set.of(7L), true)));
+        assertThat(called.await(5, TimeUnit.SECONDS)).isTrue();
+        CountDownLatch started = new CountDownLatch(CALLERS - 1);
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> {
+                started.countDown();
+                return coalescer.getEventViews(START, Set.of(7L), true);
+            }));
+        }
+        started.await(5, TimeUnit.SECONDS);
+        // Даёт отметившимся потокам дойти до ожидания общего запроса
+        Thread.sleep(100);
+        return results;
+    }
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Data
@@ -18,9 +19,11 @@ public class EndpointHitDto {
 
     @NotNull
     @NotBlank
+    @Size(max = 255)
     private String app;
 
     @NotBlank
+    @Size(max = 255)
     private String uri;
 
     @NotNull
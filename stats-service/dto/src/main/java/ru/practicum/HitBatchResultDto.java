@@ -0,0 +1,17 @@
+package ru.practicum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HitBatchResultDto {
+
+    private Long accepted;
+
+    private List<Integer> batches;
+}
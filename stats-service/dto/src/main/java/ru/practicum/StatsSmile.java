@@ -0,0 +1,69 @@
+package ru.practicum;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Двоичный формат Smile для обмена между StatsClient и сервером статистики.
+ * В отличие от JSON время хита передаётся числом секунд, а повторяющиеся app и uri в пачке — ссылками.
+ */
+public final class StatsSmile {
+
+    public static final String MEDIA_TYPE = "application/x-jackson-smile";
+
+    private StatsSmile() {
+    }
+
+    public static ObjectMapper createMapper() {
+        SmileFactory factory = new SmileFactory();
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        return new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .addMixIn(EndpointHitDto.class, EndpointHitMixIn.class)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    private abstract static class EndpointHitMixIn {
+        @JsonSerialize(using = EpochSecondSerializer.class)
+        @JsonDeserialize(using = EpochSecondDeserializer.class)
+        private LocalDateTime timestamp;
+    }
+
+    private static class EpochSecondSerializer extends StdSerializer<LocalDateTime> {
+        EpochSecondSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(value.toEpochSecond(ZoneOffset.UTC));
+        }
+    }
+
+    private static class EpochSecondDeserializer extends StdDeserializer<LocalDateTime> {
+        EpochSecondDeserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return LocalDateTime.ofEpochSecond(parser.getLongValue(), 0, ZoneOffset.UTC);
+        }
+    }
+}
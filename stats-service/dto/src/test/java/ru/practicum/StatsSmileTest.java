@@ -0,0 +1,93 @@
+package ru.practicum;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнивает Smile с JSON на пачке хитов и ответе статистики того вида, что шлёт основной сервис.
+ * Замер времени запускается с -Dbenchmark=true.
+ */
+@Slf4j
+class StatsSmileTest {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectMapper smile = StatsSmile.createMapper();
+
+    @Test
+    void hitsSurviveRoundTrip() throws IOException {
+        List<EndpointHitDto> hits = hits();
+
+        List<EndpointHitDto> decoded = smile.readValue(smile.writeValueAsBytes(hits),
+                new TypeReference<List<EndpointHitDto>>() {
+                });
+
+        assertThat(decoded).isEqualTo(hits);
+    }
+
+    @Test
+    void hitBatchIsAtLeastThreeTimesSmallerThanJson() throws IOException {
+        List<EndpointHitDto> hits = hits();
+
+        int jsonSize = json.writeValueAsBytes(hits).length;
+        int smileSize = smile.writeValueAsBytes(hits).length;
+
+        log.info("Пачка из {} хитов: JSON {} байт, Smile {} байт", BATCH_SIZE, jsonSize, smileSize);
+        assertThat(smileSize * 3).isLessThan(jsonSize);
+    }
+
+    @Test
+    void statsResponseIsSmallerThanJson() throws IOException {
+        List<ViewStatsDto> stats = stats();
+
+        int jsonSize = json.writeValueAsBytes(stats).length;
+        int smileSize = smile.writeValueAsBytes(stats).length;
+
+        log.info("Статистика по {} uri: JSON {} байт, Smile {} байт", stats.size(), jsonSize, smileSize);
+        assertThat(smileSize).isLessThan(jsonSize);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void encodeAndDecodeTime() throws IOException {
+        List<EndpointHitDto> hits = hits();
+        TypeReference<List<EndpointHitDto>> type = new TypeReference<>() {
+        };
+        for (ObjectMapper mapper : List.of(json, smile, json, smile)) {
+            int rounds = 2000;
+            long started = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                mapper.readValue(mapper.writeValueAsBytes(hits), type);
+            }
+            log.info("{}: {} мкс на запись и чтение пачки из {} хитов",
+                    mapper == smile ? "Smile" : "JSON", (System.nanoTime() - started) / rounds / 1000, BATCH_SIZE);
+        }
+    }
+
+    private static List<EndpointHitDto> hits() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 15, 12, 0);
+        return IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> new EndpointHitDto("ewm-main-service", "/events/" + i % 50,
+                        "192.168." + i % 7 + "." + i % 250, now.plusSeconds(i)))
+                .collect(Collectors.toList());
+    }
+
+    private static List<ViewStatsDto> stats() {
+        return IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> new ViewStatsDto("ewm-main-service", "/events/" + i, 1000L - i))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import ru.practicum.StatsSmile;
+
+@Configuration
+public class SmileConfig {
+
+    /**
+     * Заменяет стандартный Smile-конвертер Spring MVC, чтобы /hit и /hits понимали формат {@link StatsSmile}.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(StatsSmile.createMapper());
+    }
+}
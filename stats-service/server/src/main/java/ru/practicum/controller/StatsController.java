@@ -1,22 +1,52 @@
 package ru.practicum.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.EndpointHitDto;
-import ru.practicum.ViewStatsDto;
+import ru.practicum.HitBatchResultDto;
+import ru.practicum.StatsSmile;
+import ru.practicum.exception.ValidationException;
 import ru.practicum.service.StatsService;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
+@Validated
 public class StatsController {
     private final StatsService statsService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
     private static final String DATE = "yyyy-MM-dd HH:mm:ss";
+    private static final int FLUSH_EVERY = 256;
+    private static final MediaType SMILE = MediaType.parseMediaType(StatsSmile.MEDIA_TYPE);
+    /**
+     * true, если уникальные IP оценены по скетчам, false, если посчитаны точно.
+     */
+    public static final String APPROXIMATE_HEADER = "X-Stats-Approximate";
 
     @PostMapping("/hit")
     @ResponseStatus(code = HttpStatus.CREATED)
@@ -24,11 +54,75 @@ public class StatsController {
         statsService.create(endpointHitDto);
     }
 
+    @PostMapping(path = "/hits", consumes = {MediaType.APPLICATION_JSON_VALUE, StatsSmile.MEDIA_TYPE})
+    @ResponseStatus(code = HttpStatus.CREATED)
+    public HitBatchResultDto createAll(@RequestBody List<@Valid EndpointHitDto> endpointHitDtos) {
+        return statsService.createAll(endpointHitDtos);
+    }
+
+    @PostMapping(path = "/hits", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(code = HttpStatus.CREATED)
+    public HitBatchResultDto createAll(InputStream body) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return statsService.createAll(reader.lines()
+                    .filter(line -> !line.isBlank())
+                    .map(this::parseHit));
+        }
+    }
+
+    /**
+     * Отдаёт статистику по мере чтения из базы: JSON-массивом (по умолчанию), NDJSON
+     * или массивом Smile, если клиент принимает application/x-ndjson или application/x-jackson-smile.
+     */
     @GetMapping("/stats")
-    public List<ViewStatsDto> getStatistic(@RequestParam("start") @DateTimeFormat(pattern = DATE) LocalDateTime start,
-                                           @RequestParam("end") @DateTimeFormat(pattern = DATE) LocalDateTime end,
-                                           @RequestParam(required = false) List<String> uris,
-                                           @RequestParam(required = false, defaultValue = "false") Boolean unique) {
-        return statsService.getStatistics(start, end, uris, unique);
+    public ResponseEntity<StreamingResponseBody> getStatistic(
+            @RequestParam("start") @DateTimeFormat(pattern = DATE) LocalDateTime start,
+            @RequestParam("end") @DateTimeFormat(pattern = DATE) LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(required = false, defaultValue = "false") Boolean unique,
+            @RequestParam(required = false, defaultValue = "false") Boolean approximate,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        statsService.checkInterval(start, end);
+
+        List<MediaType> accepted = accept == null ? List.of() : MediaType.parseMediaTypes(accept);
+        boolean ndjson = accepted.stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        boolean smile = !ndjson && accepted.stream().anyMatch(SMILE::equalsTypeAndSubtype);
+        MediaType contentType = ndjson ? MediaType.APPLICATION_NDJSON : smile ? SMILE : MediaType.APPLICATION_JSON;
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = (smile ? smileConverter.getObjectMapper() : objectMapper).writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (SequenceWriter sequence = ndjson
+                    ? writer.withRootValueSeparator("\n").writeValues(out)
+                    : writer.writeValuesAsArray(out)) {
+                int[] written = {0};
+                statsService.streamStatistics(start, end, uris, unique, approximate, viewStatsDto -> {
+                    try {
+                        sequence.write(viewStatsDto);
+                        if (++written[0] % FLUSH_EVERY == 0) {
+                            sequence.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(APPROXIMATE_HEADER, String.valueOf(statsService.isApproximate(unique, approximate)))
+                .body(body);
+    }
+
+    private EndpointHitDto parseHit(String line) {
+        EndpointHitDto endpointHitDto;
+        try {
+            endpointHitDto = objectMapper.readValue(line, EndpointHitDto.class);
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Некорректная строка NDJSON: " + e.getOriginalMessage());
+        }
+        if (!validator.validate(endpointHitDto).isEmpty()) {
+            throw new ValidationException("Некорректный хит: " + line);
+        }
+        return endpointHitDto;
     }
 }
@@ -0,0 +1,165 @@
+package ru.practicum.counter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.ViewStats;
+import ru.practicum.repository.HitRollupRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Посекундные счётчики хитов по app и uri за последние {@code stats.counters.window-minutes} минут.
+ * Отвечают на неуникальные запросы по недавнему интервалу без обращения к базе,
+ * а в агрегаты endpoint_hits_* попадают с задержкой, пачкой раз в {@code stats.counters.flush-interval-ms}.
+ * Хиты старше окна сразу пишутся в агрегаты.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.counters.enabled", havingValue = "true")
+public class RecentHitCounters {
+
+    private final HitRollupRepository hitRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowSeconds;
+
+    private final Map<RollupKey, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Хиты, записанные до запуска, в счётчиках отсутствуют, поэтому отвечать можно только с этого момента.
+     */
+    private final LocalDateTime coveredFrom = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+
+    public RecentHitCounters(HitRollupRepository hitRollupRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${stats.counters.window-minutes:15}") long windowMinutes) {
+        this.hitRollupRepository = hitRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.windowSeconds = windowMinutes * 60;
+    }
+
+    /**
+     * Учитывает хиты после фиксации текущей транзакции, чтобы откат вставки не оставил их в счётчиках.
+     */
+    public void add(List<EndpointHit> endpointHits) {
+        LocalDateTime windowStart = windowStart();
+        List<EndpointHit> recent = new ArrayList<>(endpointHits.size());
+        List<EndpointHit> old = new ArrayList<>();
+        for (EndpointHit hit : endpointHits) {
+            (hit.getTimestamp().isBefore(windowStart) ? old : recent).add(hit);
+        }
+
+        if (!old.isEmpty()) {
+            hitRollupRepository.increment(old);
+        }
+        if (recent.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(recent);
+                }
+            });
+        } else {
+            increment(recent);
+        }
+    }
+
+    public boolean covers(LocalDateTime start) {
+        return !start.isBefore(coveredFrom) && !start.isBefore(windowStart());
+    }
+
+    public List<ViewStats> getHits(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds) {
+        Set<Integer> uriFilter = uriIds == null ? null : Set.copyOf(uriIds);
+        Map<Integer, Map<Integer, Long>> hits = new HashMap<>();
+        counters.forEach((key, counter) -> {
+            if (key.getBucket().isBefore(start) || key.getBucket().isAfter(end)
+                    || (uriFilter != null && !uriFilter.contains(key.getUriId()))) {
+                return;
+            }
+            long count = counter.total.sum();
+            if (count > 0) {
+                hits.computeIfAbsent(key.getAppId(), appId -> new HashMap<>())
+                        .merge(key.getUriId(), count, Long::sum);
+            }
+        });
+
+        List<ViewStats> stats = new ArrayList<>();
+        hits.forEach((appId, byUri) -> byUri.forEach((uriId, count) -> stats.add(new ViewStats(appId, uriId, count))));
+        stats.sort(Comparator.comparing(ViewStats::getHits).reversed());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.counters.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<RollupKey, Long> pending = new HashMap<>();
+        counters.forEach((key, counter) -> {
+            long count = counter.pending.sumThenReset();
+            if (count > 0) {
+                pending.put(key, count);
+            }
+        });
+
+        if (!pending.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> hitRollupRepository.add(pending));
+            } catch (DataAccessException | TransactionException e) {
+                log.error("Не удалось сохранить счётчики хитов: {}", e.getMessage());
+                pending.forEach((key, count) -> counters.get(key).pending.add(count));
+                return;
+            }
+        }
+
+        // Запас в минуту: хит, признанный недавним в add, не должен попасть в уже удалённый счётчик
+        LocalDateTime evictBefore = windowStart().minusMinutes(1);
+        counters.entrySet().removeIf(entry ->
+                entry.getKey().getBucket().isBefore(evictBefore) && entry.getValue().pending.sum() == 0);
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void increment(List<EndpointHit> endpointHits) {
+        for (EndpointHit hit : endpointHits) {
+            RollupKey key = new RollupKey(hit.getTimestamp().truncatedTo(ChronoUnit.SECONDS),
+                    hit.getAppId(), hit.getUriId());
+            Counter counter = counters.computeIfAbsent(key, k -> new Counter());
+            counter.total.increment();
+            counter.pending.increment();
+        }
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.now().minusSeconds(windowSeconds);
+    }
+
+    private static class Counter {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+    }
+}
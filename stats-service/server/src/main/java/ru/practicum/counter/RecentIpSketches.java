@@ -0,0 +1,159 @@
+package ru.practicum.counter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.hll.HyperLogLog;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.RollupGranularity;
+import ru.practicum.model.RollupKey;
+import ru.practicum.repository.IpSketchRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * HyperLogLog-скетчи IP-адресов, накопленные с последней записи в endpoint_ips_*. Приём хитов только
+ * обновляет их в памяти, а в базу они попадают пачкой раз в {@code stats.hll.flush-interval-ms} из одного
+ * потока, поэтому транзакции приёма не блокируют строки скетчей. Объединение скетчей идемпотентно:
+ * запросы добавляют ещё не записанные скетчи к прочитанным из базы, и повторный учёт ничего не портит.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.hll.enabled", havingValue = "true")
+public class RecentIpSketches {
+
+    private final IpSketchRepository ipSketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int precision;
+
+    /**
+     * С этого момента все хиты попадают в скетчи. Более ранние хиты записаны, когда скетчи были выключены.
+     */
+    private final LocalDateTime coveredFrom;
+
+    private final Map<RollupGranularity, Map<RollupKey, HyperLogLog>> pending =
+            new EnumMap<>(RollupGranularity.class);
+
+    /**
+     * Скетчи, которые сейчас записываются: пока транзакция не зафиксирована, их нет ни в pending, ни в базе.
+     */
+    private volatile Map<RollupGranularity, Map<RollupKey, HyperLogLog>> flushing = Map.of();
+
+    public RecentIpSketches(IpSketchRepository ipSketchRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${stats.hll.relative-error:0.02}") double relativeError) {
+        this.ipSketchRepository = ipSketchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.precision = HyperLogLog.precisionFor(relativeError);
+        this.coveredFrom = ipSketchRepository.startCoverage(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        IpSketchRepository.GRANULARITIES.forEach(granularity -> pending.put(granularity, new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * Учитывает хиты после фиксации текущей транзакции, чтобы откат вставки не оставил их в скетчах.
+     */
+    public void add(List<EndpointHit> endpointHits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    merge(endpointHits);
+                }
+            });
+        } else {
+            merge(endpointHits);
+        }
+    }
+
+    public LocalDateTime getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    /**
+     * Копии ещё не записанных скетчей для запроса статистики.
+     */
+    public Map<RollupGranularity, Map<RollupKey, HyperLogLog>> snapshot() {
+        Map<RollupGranularity, Map<RollupKey, HyperLogLog>> snapshot = new EnumMap<>(RollupGranularity.class);
+        flushing.forEach((granularity, sketches) -> {
+            Map<RollupKey, HyperLogLog> copies = new HashMap<>();
+            sketches.forEach((key, sketch) -> copies.put(key, sketch.copy()));
+            snapshot.put(granularity, copies);
+        });
+        pending.forEach((granularity, sketches) -> {
+            Map<RollupKey, HyperLogLog> copies = snapshot.computeIfAbsent(granularity, key -> new HashMap<>());
+            for (RollupKey key : sketches.keySet()) {
+                // Копия снимается внутри compute, чтобы не читать регистры во время add
+                sketches.computeIfPresent(key, (k, sketch) -> {
+                    copies.merge(k, sketch.copy(), HyperLogLog::merge);
+                    return sketch;
+                });
+            }
+        });
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.hll.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // Скетчи переносятся в упорядоченные карты, видимые запросам ещё до изъятия из pending,
+        // а строки в базе блокируются в порядке ключей
+        Map<RollupGranularity, Map<RollupKey, HyperLogLog>> batch = new EnumMap<>(RollupGranularity.class);
+        pending.keySet().forEach(granularity -> batch.put(granularity, new ConcurrentSkipListMap<>()));
+        flushing = batch;
+        pending.forEach((granularity, sketches) -> {
+            for (RollupKey key : sketches.keySet()) {
+                HyperLogLog sketch = sketches.remove(key);
+                if (sketch != null) {
+                    batch.get(granularity).put(key, sketch);
+                }
+            }
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach((granularity, sketches) -> {
+                if (!sketches.isEmpty()) {
+                    ipSketchRepository.merge(granularity, sketches);
+                }
+            }));
+        } catch (DataAccessException | TransactionException e) {
+            log.error("Не удалось сохранить скетчи IP-адресов: {}", e.getMessage());
+            batch.forEach((granularity, sketches) -> sketches.forEach((key, sketch) ->
+                    pending.get(granularity).merge(key, sketch.copy(), HyperLogLog::merge)));
+        } finally {
+            flushing = Map.of();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void merge(List<EndpointHit> endpointHits) {
+        pending.forEach((granularity, sketches) -> {
+            for (EndpointHit hit : endpointHits) {
+                RollupKey key = new RollupKey(granularity.floor(hit.getTimestamp()), hit.getAppId(), hit.getUriId());
+                sketches.compute(key, (k, sketch) -> {
+                    HyperLogLog target = sketch == null ? new HyperLogLog(precision) : sketch;
+                    target.add(hit.getIp());
+                    return target;
+                });
+            }
+        });
+    }
+}
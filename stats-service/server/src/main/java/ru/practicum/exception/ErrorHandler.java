@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.validation.ConstraintViolationException;
 import java.time.LocalDateTime;
 
 @RestControllerAdvice
@@ -19,4 +20,14 @@ public class ErrorHandler {
                 HttpStatus.BAD_REQUEST.name(),
                 LocalDateTime.now());
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleConstraintViolationException(final ConstraintViolationException ex) {
+        return new ErrorResponse(
+                ex.getMessage(),
+                "Incorrectly made request",
+                HttpStatus.BAD_REQUEST.name(),
+                LocalDateTime.now());
+    }
 }
@@ -0,0 +1,155 @@
+package ru.practicum.hll;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Плотный HyperLogLog с 2^precision регистрами. Стандартная ошибка оценки ≈ 1.04 / sqrt(2^precision).
+ * Точность записывается в первый байт {@link #toBytes()}, поэтому скетчи разной точности можно объединять:
+ * более точный сворачивается до точности менее точного.
+ */
+public class HyperLogLog {
+
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 16;
+
+    private int precision;
+    private byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Точность HyperLogLog должна быть от 4 до 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public static int precisionFor(double relativeError) {
+        int precision = (int) Math.ceil(2 * Math.log(1.04 / relativeError) / Math.log(2));
+        return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        return new HyperLogLog(bytes[0], Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[registers.length + 1];
+        bytes[0] = (byte) precision;
+        System.arraycopy(registers, 0, bytes, 1, registers.length);
+        return bytes;
+    }
+
+    public void add(String value) {
+        add(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void add(byte[] value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Объединяет other с этим скетчем. Если точности различаются, результат получает меньшую из них.
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision < precision) {
+            registers = fold(registers, precision, other.precision);
+            precision = other.precision;
+        }
+        byte[] otherRegisters = other.precision == precision
+                ? other.registers
+                : fold(other.registers, other.precision, precision);
+        for (int i = 0; i < registers.length; i++) {
+            if (otherRegisters[i] > registers[i]) {
+                registers[i] = otherRegisters[i];
+            }
+        }
+        return this;
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(precision, registers.clone());
+    }
+
+    /**
+     * Пересчитывает регистры к меньшей точности. Отбрасываемые младшие биты индекса становятся
+     * старшими битами остатка хэша, поэтому результат совпадает со скетчем, сразу построенным с этой точностью.
+     */
+    private static byte[] fold(byte[] registers, int from, int to) {
+        int shift = from - to;
+        byte[] folded = new byte[1 << to];
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) {
+                continue;
+            }
+            int dropped = i & ((1 << shift) - 1);
+            int rank = dropped == 0
+                    ? shift + registers[i]
+                    : shift - (Integer.SIZE - Integer.numberOfLeadingZeros(dropped)) + 1;
+            int index = i >>> shift;
+            if (rank > folded[index]) {
+                folded[index] = (byte) rank;
+            }
+        }
+        return folded;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    private static long hash(byte[] value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
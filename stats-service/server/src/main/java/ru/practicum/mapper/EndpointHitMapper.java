@@ -1,14 +1,31 @@
 package ru.practicum.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
+import org.springframework.beans.factory.annotation.Autowired;
 import ru.practicum.EndpointHitDto;
 import ru.practicum.model.EndpointHit;
+import ru.practicum.repository.EndpointDictionary;
 
-@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
-public interface EndpointHitMapper {
+import java.util.List;
 
-    EndpointHitDto convertToEndpointHitDto(EndpointHit endpointHit);
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, imports = IpAddressCodec.class)
+public abstract class EndpointHitMapper {
 
-    EndpointHit convertToEndpointHit(EndpointHitDto endpointHitDto);
+    @Autowired
+    protected EndpointDictionary endpointDictionary;
+
+    @Mapping(target = "app", expression = "java(endpointDictionary.getAppName(endpointHit.getAppId()))")
+    @Mapping(target = "uri", expression = "java(endpointDictionary.getUri(endpointHit.getUriId()))")
+    @Mapping(target = "ip", expression = "java(IpAddressCodec.decode(endpointHit.getIp()))")
+    public abstract EndpointHitDto convertToEndpointHitDto(EndpointHit endpointHit);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "appId", expression = "java(endpointDictionary.getAppId(endpointHitDto.getApp()))")
+    @Mapping(target = "uriId", expression = "java(endpointDictionary.getUriId(endpointHitDto.getUri()))")
+    @Mapping(target = "ip", expression = "java(IpAddressCodec.encode(endpointHitDto.getIp()))")
+    public abstract EndpointHit convertToEndpointHit(EndpointHitDto endpointHitDto);
+
+    public abstract List<EndpointHit> convertToEndpointHits(List<EndpointHitDto> endpointHitDtos);
 }
@@ -0,0 +1,59 @@
+package ru.practicum.mapper;
+
+import ru.practicum.exception.ValidationException;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Хранит IP-адрес в двоичном виде: 4 байта для IPv4, 16 байт для IPv6.
+ */
+public final class IpAddressCodec {
+
+    private IpAddressCodec() {
+    }
+
+    public static byte[] encode(String ip) {
+        byte[] address = parseIpv4(ip);
+        if (address != null) {
+            return address;
+        }
+        // getByName не обращается к DNS, если строка — IPv6-литерал
+        if (ip.indexOf(':') >= 0) {
+            try {
+                return InetAddress.getByName(ip).getAddress();
+            } catch (UnknownHostException e) {
+                throw new ValidationException("Некорректный IP-адрес: " + ip);
+            }
+        }
+        throw new ValidationException("Некорректный IP-адрес: " + ip);
+    }
+
+    public static String decode(byte[] address) {
+        try {
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Некорректная длина IP-адреса: " + address.length);
+        }
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        String[] octets = ip.split("\\.", -1);
+        if (octets.length != 4) {
+            return null;
+        }
+        byte[] address = new byte[4];
+        for (int i = 0; i < octets.length; i++) {
+            String octet = octets[i];
+            if (octet.isEmpty() || octet.length() > 3 || !octet.chars().allMatch(Character::isDigit)) {
+                return null;
+            }
+            int value = Integer.parseInt(octet);
+            if (value > 255) {
+                return null;
+            }
+            address[i] = (byte) value;
+        }
+        return address;
+    }
+}
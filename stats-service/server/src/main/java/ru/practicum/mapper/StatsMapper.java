@@ -1,10 +1,19 @@
 package ru.practicum.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.springframework.beans.factory.annotation.Autowired;
 import ru.practicum.ViewStatsDto;
 import ru.practicum.model.ViewStats;
+import ru.practicum.repository.EndpointDictionary;
 
 @Mapper(componentModel = "spring")
-public interface StatsMapper {
-    ViewStatsDto v(ViewStats viewStats);
+public abstract class StatsMapper {
+
+    @Autowired
+    protected EndpointDictionary endpointDictionary;
+
+    @Mapping(target = "app", expression = "java(endpointDictionary.getAppName(viewStats.getAppId()))")
+    @Mapping(target = "uri", expression = "java(endpointDictionary.getUri(viewStats.getUriId()))")
+    public abstract ViewStatsDto convertToViewStatsDto(ViewStats viewStats);
 }
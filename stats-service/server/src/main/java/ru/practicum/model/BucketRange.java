@@ -0,0 +1,57 @@
+package ru.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Полуинтервал [from, to), который читается из агрегатов granularity или, если granularity = null, из endpoints.
+ */
+@Getter
+@AllArgsConstructor
+public class BucketRange {
+
+    private final RollupGranularity granularity;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+
+    /**
+     * Разбивает [from, to) на выровненные интервалы: сначала самые крупные из granularities
+     * (от крупной к мелкой), а невыровненные края — сырыми интервалами.
+     */
+    public static List<BucketRange> split(LocalDateTime from, LocalDateTime to, List<RollupGranularity> granularities) {
+        List<BucketRange> ranges = new ArrayList<>();
+        split(from, to, granularities, 0, ranges);
+        return ranges;
+    }
+
+    private static void split(LocalDateTime from, LocalDateTime to, List<RollupGranularity> granularities, int level,
+                              List<BucketRange> ranges) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (level == granularities.size()) {
+            ranges.add(new BucketRange(null, from, to));
+            return;
+        }
+
+        RollupGranularity granularity = granularities.get(level);
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedTo = granularity.floor(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            split(from, to, granularities, level + 1, ranges);
+            return;
+        }
+
+        split(from, alignedFrom, granularities, level + 1, ranges);
+        ranges.add(new BucketRange(granularity, alignedFrom, alignedTo));
+        split(alignedTo, to, granularities, level + 1, ranges);
+    }
+}
@@ -19,8 +19,8 @@ public class EndpointHit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    private String app;
-    private String uri;
-    private String ip;
+    private Integer appId;
+    private Integer uriId;
+    private byte[] ip;
     private LocalDateTime timestamp;
 }
@@ -0,0 +1,47 @@
+package ru.practicum.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+public enum PartitionInterval {
+    DAY(ChronoUnit.DAYS, "yyyyMMdd"),
+    MONTH(ChronoUnit.MONTHS, "yyyyMM");
+
+    private final ChronoUnit unit;
+    private final DateTimeFormatter suffixFormat;
+
+    PartitionInterval(ChronoUnit unit, String suffixPattern) {
+        this.unit = unit;
+        this.suffixFormat = DateTimeFormatter.ofPattern(suffixPattern);
+    }
+
+    public LocalDateTime floor(LocalDateTime timestamp) {
+        LocalDateTime day = timestamp.truncatedTo(ChronoUnit.DAYS);
+        return this == MONTH ? day.withDayOfMonth(1) : day;
+    }
+
+    public LocalDateTime next(LocalDateTime from) {
+        return from.plus(1, unit);
+    }
+
+    public String suffix(LocalDateTime from) {
+        return suffixFormat.format(from);
+    }
+
+    /**
+     * Начало интервала по суффиксу имени партиции или {@code null}, если суффикс не в формате этого интервала.
+     */
+    public LocalDateTime parseSuffix(String suffix) {
+        try {
+            if (this == MONTH) {
+                return YearMonth.parse(suffix, suffixFormat).atDay(1).atStartOfDay();
+            }
+            return LocalDate.parse(suffix, suffixFormat).atStartOfDay();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
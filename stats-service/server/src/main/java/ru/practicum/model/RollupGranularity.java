@@ -0,0 +1,31 @@
+package ru.practicum.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    DAY("endpoint_hits_day", ChronoUnit.DAYS),
+    HOUR("endpoint_hits_hour", ChronoUnit.HOURS),
+    MINUTE("endpoint_hits_minute", ChronoUnit.MINUTES);
+
+    private final String tableName;
+    private final ChronoUnit unit;
+
+    RollupGranularity(String tableName, ChronoUnit unit) {
+        this.tableName = tableName;
+        this.unit = unit;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public LocalDateTime floor(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+
+    public LocalDateTime ceil(LocalDateTime timestamp) {
+        LocalDateTime floor = floor(timestamp);
+        return floor.equals(timestamp) ? floor : floor.plus(1, unit);
+    }
+}
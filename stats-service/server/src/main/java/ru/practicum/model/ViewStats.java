@@ -11,7 +11,7 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ViewStats {
-    private String app;
-    private String uri;
+    private Integer appId;
+    private Integer uriId;
     private Long hits;
 }
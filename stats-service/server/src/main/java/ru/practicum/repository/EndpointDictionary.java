@@ -0,0 +1,166 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словари приложений и uri с целочисленными id, закэшированные в памяти.
+ * Новые значения вставляются на соединении текущей транзакции, чтобы приём хитов не занимал второе
+ * соединение из пула. В общий кэш id попадает только после фиксации: до неё он виден лишь своей транзакции,
+ * и откат пачки хитов не оставит в кэше id несуществующей строки.
+ */
+@Repository
+public class EndpointDictionary {
+
+    private final Dictionary apps;
+    private final Dictionary uris;
+
+    public EndpointDictionary(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.apps = new Dictionary(jdbcTemplate, "apps", "name");
+        this.uris = new Dictionary(jdbcTemplate, "uris", "uri");
+    }
+
+    /**
+     * Заранее получает id всех app и uri пачки в алфавитном порядке. Новые значения блокируют строку
+     * словаря до конца транзакции, и общий порядок не даёт двум пачкам заблокировать друг друга.
+     */
+    public void resolve(Collection<String> appNames, Collection<String> uriValues) {
+        new TreeSet<>(appNames).forEach(apps::getOrCreateId);
+        new TreeSet<>(uriValues).forEach(uris::getOrCreateId);
+    }
+
+    public int getAppId(String app) {
+        return apps.getOrCreateId(app);
+    }
+
+    public int getUriId(String uri) {
+        return uris.getOrCreateId(uri);
+    }
+
+    public String getAppName(int appId) {
+        return apps.getValue(appId);
+    }
+
+    public String getUri(int uriId) {
+        return uris.getValue(uriId);
+    }
+
+    public List<Integer> findUriIds(Collection<String> values) {
+        return uris.findIds(values);
+    }
+
+    private static class Dictionary {
+
+        private final NamedParameterJdbcTemplate jdbcTemplate;
+        private final String table;
+        private final String column;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+        Dictionary(NamedParameterJdbcTemplate jdbcTemplate, String table, String column) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.table = table;
+            this.column = column;
+        }
+
+        int getOrCreateId(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            Map<String, Integer> uncommitted = uncommittedIds();
+            if (uncommitted != null && (id = uncommitted.get(value)) != null) {
+                return id;
+            }
+
+            // Если то же значение вставляет другая транзакция, INSERT дождётся её завершения,
+            // и SELECT увидит зафиксированную строку
+            MapSqlParameterSource parameters = new MapSqlParameterSource("value", value);
+            jdbcTemplate.update("INSERT INTO " + table + " (" + column + ") VALUES (:value) " +
+                    "ON CONFLICT (" + column + ") DO NOTHING", parameters);
+            id = jdbcTemplate.queryForObject("SELECT id FROM " + table + " WHERE " + column + " = :value",
+                    parameters, Integer.class);
+            if (uncommitted != null) {
+                uncommitted.put(value, id);
+            } else {
+                cache(id, value);
+            }
+            return id;
+        }
+
+        /**
+         * id, полученные в текущей транзакции: попадают в общий кэш после её фиксации.
+         * Без активной транзакции каждая вставка фиксируется сразу, и возвращается null.
+         */
+        @SuppressWarnings("unchecked")
+        private Map<String, Integer> uncommittedIds() {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return null;
+            }
+            Map<String, Integer> uncommitted = (Map<String, Integer>) TransactionSynchronizationManager.getResource(this);
+            if (uncommitted == null) {
+                Map<String, Integer> created = new HashMap<>();
+                TransactionSynchronizationManager.bindResource(this, created);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(Dictionary.this);
+                        if (status == STATUS_COMMITTED) {
+                            created.forEach((value, id) -> cache(id, value));
+                        }
+                    }
+                });
+                uncommitted = created;
+            }
+            return uncommitted;
+        }
+
+        String getValue(int id) {
+            String value = values.get(id);
+            if (value == null) {
+                value = jdbcTemplate.queryForObject("SELECT " + column + " FROM " + table + " WHERE id = :id",
+                        new MapSqlParameterSource("id", id), String.class);
+                cache(id, value);
+            }
+            return value;
+        }
+
+        List<Integer> findIds(Collection<String> searched) {
+            List<Integer> found = new ArrayList<>();
+            List<String> missing = new ArrayList<>();
+            for (String value : searched) {
+                Integer id = ids.get(value);
+                if (id != null) {
+                    found.add(id);
+                } else {
+                    missing.add(value);
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                jdbcTemplate.query("SELECT id, " + column + " FROM " + table + " WHERE " + column + " IN (:values)",
+                        new MapSqlParameterSource("values", missing), rs -> {
+                            cache(rs.getInt("id"), rs.getString(column));
+                            found.add(rs.getInt("id"));
+                        });
+            }
+            return found;
+        }
+
+        private void cache(int id, String value) {
+            ids.put(value, id);
+            values.put(id, value);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitBatchRepository {
+
+    private static final String INSERT_HIT = "INSERT INTO endpoints (app_id, uri_id, ip, timestamp) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int insertAll(List<EndpointHit> hits) {
+        jdbcTemplate.batchUpdate(INSERT_HIT, hits, hits.size(), (ps, hit) -> {
+            ps.setInt(1, hit.getAppId());
+            ps.setInt(2, hit.getUriId());
+            ps.setBytes(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+        return hits.size();
+    }
+}
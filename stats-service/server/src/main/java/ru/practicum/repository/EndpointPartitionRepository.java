@@ -0,0 +1,47 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DDL для партиций таблицы endpoints. Имена партиций формирует только сервер, поэтому они подставляются в SQL напрямую.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointPartitionRepository {
+
+    public static final String PARENT_TABLE = "endpoints";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = ?::regclass", String.class, PARENT_TABLE);
+    }
+
+    /**
+     * Создаёт партицию, если её нет. Параллельные создатели одной партиции ждут друг друга на advisory-блокировке
+     * до конца транзакции, поэтому проигравший видит уже созданную таблицу.
+     */
+    public void create(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext(?))", name);
+        jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s " +
+                        "FOR VALUES FROM ('%s') TO ('%s')",
+                name, PARENT_TABLE, Timestamp.valueOf(from), Timestamp.valueOf(to)));
+    }
+
+    public void detach(String name) {
+        jdbcTemplate.execute(String.format("ALTER TABLE %s DETACH PARTITION %s", PARENT_TABLE, name));
+        jdbcTemplate.execute(String.format("ALTER TABLE %1$s RENAME TO %1$s_detached", name));
+    }
+
+    public void drop(String name) {
+        jdbcTemplate.execute(String.format("DROP TABLE %s", name));
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.EndpointHitDto;
+
+import java.sql.Timestamp;
+
+/**
+ * Хиты из журнала, которые не удалось записать в endpoints. Хранятся как есть, без ограничений длины,
+ * чтобы их можно было разобрать и загрузить вручную.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitDeadLetterRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void save(long segment, int position, EndpointHitDto endpointHitDto, String error) {
+        jdbcTemplate.update("INSERT INTO hit_log_dead_letters (segment, position, app, uri, ip, timestamp, error) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                segment, position, endpointHitDto.getApp(), endpointHitDto.getUri(), endpointHitDto.getIp(),
+                endpointHitDto.getTimestamp() == null ? null : Timestamp.valueOf(endpointHitDto.getTimestamp()),
+                error);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HitLogCheckpoint;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class HitLogCheckpointRepository {
+
+    private static final int CHECKPOINT_ID = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HitLogCheckpoint find() {
+        List<HitLogCheckpoint> checkpoints = jdbcTemplate.query(
+                "SELECT segment, position FROM hit_log_checkpoint WHERE id = ?",
+                (rs, rowNum) -> new HitLogCheckpoint(rs.getLong("segment"), rs.getInt("position")),
+                CHECKPOINT_ID);
+        return checkpoints.isEmpty() ? new HitLogCheckpoint(0, 0) : checkpoints.get(0);
+    }
+
+    public void save(HitLogCheckpoint checkpoint) {
+        jdbcTemplate.update("INSERT INTO hit_log_checkpoint (id, segment, position) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (id) DO UPDATE SET segment = EXCLUDED.segment, position = EXCLUDED.position",
+                CHECKPOINT_ID, checkpoint.getSegment(), checkpoint.getPosition());
+    }
+}
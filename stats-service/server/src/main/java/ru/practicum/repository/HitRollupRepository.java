@@ -0,0 +1,103 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.BucketRange;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.RollupGranularity;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.ViewStats;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Поминутные, почасовые и посуточные счётчики хитов по app и uri.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitRollupRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void increment(List<EndpointHit> endpointHits) {
+        Map<RollupKey, Long> counts = new HashMap<>();
+        for (EndpointHit hit : endpointHits) {
+            counts.merge(new RollupKey(hit.getTimestamp(), hit.getAppId(), hit.getUriId()), 1L, Long::sum);
+        }
+        add(counts);
+    }
+
+    /**
+     * Добавляет счётчики хитов к агрегатам всех уровней, округляя время ключей до начала корзины.
+     */
+    public void add(Map<RollupKey, Long> hits) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            // Ключи сортируются, чтобы параллельные пачки блокировали строки в одном порядке
+            Map<RollupKey, Long> counts = new TreeMap<>();
+            hits.forEach((key, count) -> counts.merge(
+                    new RollupKey(granularity.floor(key.getBucket()), key.getAppId(), key.getUriId()),
+                    count, Long::sum));
+
+            SqlParameterSource[] batch = counts.entrySet().stream()
+                    .map(entry -> new MapSqlParameterSource()
+                            .addValue("bucket", entry.getKey().getBucket())
+                            .addValue("appId", entry.getKey().getAppId())
+                            .addValue("uriId", entry.getKey().getUriId())
+                            .addValue("hits", entry.getValue()))
+                    .toArray(SqlParameterSource[]::new);
+
+            jdbcTemplate.batchUpdate(String.format("INSERT INTO %1$s (bucket, app_id, uri_id, hits) " +
+                    "VALUES (:bucket, :appId, :uriId, :hits) " +
+                    "ON CONFLICT (bucket, app_id, uri_id) DO UPDATE SET hits = %1$s.hits + EXCLUDED.hits",
+                    granularity.getTableName()), batch);
+        }
+    }
+
+    /**
+     * Считает хиты за [start, end]: целые сутки, часы и минуты берутся из агрегатов,
+     * из endpoints читаются только невыровненные края интервала. Строки читаются курсором,
+     * поток нужно закрыть внутри транзакции.
+     */
+    public Stream<ViewStats> getHits(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String uriFilter = "";
+        if (uriIds != null) {
+            parameters.addValue("uriIds", uriIds);
+            uriFilter = " AND uri_id IN (:uriIds)";
+        }
+
+        // Postgres хранит время с точностью до микросекунды, поэтому [start, end] = [start, end + 1 мкс)
+        List<String> ranges = new ArrayList<>();
+        for (BucketRange range : BucketRange.split(start, end.plus(1, ChronoUnit.MICROS),
+                List.of(RollupGranularity.values()))) {
+            int index = ranges.size();
+            parameters.addValue("from" + index, range.getFrom());
+            parameters.addValue("to" + index, range.getTo());
+            if (range.isRaw()) {
+                ranges.add(String.format("SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoints " +
+                        "WHERE timestamp >= :from%1$d AND timestamp < :to%1$d%2$s GROUP BY app_id, uri_id", index, uriFilter));
+            } else {
+                ranges.add(String.format("SELECT app_id, uri_id, SUM(hits) AS hits FROM %3$s " +
+                                "WHERE bucket >= :from%1$d AND bucket < :to%1$d%2$s GROUP BY app_id, uri_id",
+                        index, uriFilter, range.getGranularity().getTableName()));
+            }
+        }
+
+        return jdbcTemplate.queryForStream("SELECT app_id, uri_id, SUM(hits) AS hits FROM (" +
+                        String.join(" UNION ALL ", ranges) + ") AS ranges " +
+                        "GROUP BY app_id, uri_id " +
+                        "ORDER BY hits DESC",
+                parameters,
+                (rs, rowNum) -> new ViewStats(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+}
@@ -0,0 +1,164 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.hll.HyperLogLog;
+import ru.practicum.model.BucketRange;
+import ru.practicum.model.RollupGranularity;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.ViewStats;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Почасовые и посуточные HyperLogLog-скетчи IP-адресов по app и uri для приближённого unique=true.
+ */
+@Repository
+public class IpSketchRepository {
+
+    public static final List<RollupGranularity> GRANULARITIES = List.of(RollupGranularity.DAY, RollupGranularity.HOUR);
+
+    private static final int COVERAGE_ID = 1;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final int precision;
+
+    public IpSketchRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                              @Value("${stats.hll.relative-error:0.02}") double relativeError) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.precision = HyperLogLog.precisionFor(relativeError);
+    }
+
+    /**
+     * Объединяет накопленные скетчи с сохранёнными. Строки блокируются по одной в порядке ключей,
+     * поэтому вызывать метод стоит из одного потока записи, а не из транзакций приёма хитов.
+     */
+    public void merge(RollupGranularity granularity, Map<RollupKey, HyperLogLog> sketches) {
+        String table = tableName(granularity);
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (bucket, app_id, uri_id, sketch) " +
+                        "VALUES (:bucket, :appId, :uriId, :sketch) ON CONFLICT (bucket, app_id, uri_id) DO NOTHING",
+                sketches.entrySet().stream()
+                        .map(entry -> parameters(entry.getKey(), entry.getValue().toBytes()))
+                        .toArray(SqlParameterSource[]::new));
+
+        // Объединение идемпотентно, поэтому только что вставленные скетчи можно объединить повторно
+        for (Map.Entry<RollupKey, HyperLogLog> entry : sketches.entrySet()) {
+            MapSqlParameterSource key = parameters(entry.getKey(), null);
+            byte[] current = jdbcTemplate.queryForObject("SELECT sketch FROM " + table +
+                    " WHERE bucket = :bucket AND app_id = :appId AND uri_id = :uriId FOR UPDATE", key, byte[].class);
+            byte[] merged = HyperLogLog.fromBytes(current).merge(entry.getValue()).toBytes();
+            if (!Arrays.equals(current, merged)) {
+                jdbcTemplate.update("UPDATE " + table + " SET sketch = :sketch " +
+                        "WHERE bucket = :bucket AND app_id = :appId AND uri_id = :uriId", key.addValue("sketch", merged));
+            }
+        }
+    }
+
+    /**
+     * Возвращает момент, с которого хиты попадают в скетчи. При первом включении скетчей им становится from.
+     */
+    public LocalDateTime startCoverage(LocalDateTime from) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("id", COVERAGE_ID)
+                .addValue("from", from);
+        jdbcTemplate.update("INSERT INTO endpoint_ips_coverage (id, covered_from) VALUES (:id, :from) " +
+                "ON CONFLICT (id) DO NOTHING", parameters);
+        return jdbcTemplate.queryForObject("SELECT covered_from FROM endpoint_ips_coverage WHERE id = :id",
+                parameters, LocalDateTime.class);
+    }
+
+    /**
+     * Забывает момент включения скетчей: пока они выключены, хиты в них не попадают.
+     */
+    public void resetCoverage() {
+        jdbcTemplate.update("DELETE FROM endpoint_ips_coverage WHERE id = :id",
+                new MapSqlParameterSource("id", COVERAGE_ID));
+    }
+
+    /**
+     * Оценивает число уникальных IP за [start, end], объединяя скетчи целых суток и часов
+     * и добавляя IP из невыровненных краёв интервала. unflushed — скетчи, ещё не записанные в базу.
+     * Хитов до coveredFrom в скетчах нет, поэтому IP этой части интервала читаются из endpoints.
+     */
+    public List<ViewStats> getUniqueHits(LocalDateTime start, LocalDateTime end, List<Integer> uriIds,
+                                         Map<RollupGranularity, Map<RollupKey, HyperLogLog>> unflushed,
+                                         LocalDateTime coveredFrom) {
+        Set<Integer> uriFilter = uriIds == null ? null : Set.copyOf(uriIds);
+        Map<Integer, Map<Integer, HyperLogLog>> merged = new HashMap<>();
+
+        LocalDateTime to = end.plus(1, ChronoUnit.MICROS);
+        LocalDateTime sketchedFrom = RollupGranularity.HOUR.ceil(coveredFrom);
+        List<BucketRange> ranges = new ArrayList<>();
+        if (start.isBefore(sketchedFrom)) {
+            ranges.add(new BucketRange(null, start, to.isBefore(sketchedFrom) ? to : sketchedFrom));
+        }
+        if (sketchedFrom.isBefore(to)) {
+            ranges.addAll(BucketRange.split(start.isBefore(sketchedFrom) ? sketchedFrom : start, to, GRANULARITIES));
+        }
+
+        for (BucketRange range : ranges) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("from", range.getFrom())
+                    .addValue("to", range.getTo());
+            String uriCondition = "";
+            if (uriIds != null) {
+                parameters.addValue("uriIds", uriIds);
+                uriCondition = " AND uri_id IN (:uriIds)";
+            }
+
+            if (range.isRaw()) {
+                jdbcTemplate.query("SELECT DISTINCT app_id, uri_id, ip FROM endpoints " +
+                        "WHERE timestamp >= :from AND timestamp < :to" + uriCondition, parameters, rs -> {
+                            sketch(merged, rs.getInt("app_id"), rs.getInt("uri_id")).add(rs.getBytes("ip"));
+                        });
+            } else {
+                jdbcTemplate.query("SELECT app_id, uri_id, sketch FROM " + tableName(range.getGranularity()) +
+                        " WHERE bucket >= :from AND bucket < :to" + uriCondition, parameters, rs -> {
+                            sketch(merged, rs.getInt("app_id"), rs.getInt("uri_id"))
+                                    .merge(HyperLogLog.fromBytes(rs.getBytes("sketch")));
+                        });
+                unflushed.getOrDefault(range.getGranularity(), Map.of()).forEach((key, sketch) -> {
+                    if (!key.getBucket().isBefore(range.getFrom()) && key.getBucket().isBefore(range.getTo())
+                            && (uriFilter == null || uriFilter.contains(key.getUriId()))) {
+                        sketch(merged, key.getAppId(), key.getUriId()).merge(sketch);
+                    }
+                });
+            }
+        }
+
+        List<ViewStats> stats = new ArrayList<>();
+        merged.forEach((appId, byUri) -> byUri.forEach((uriId, sketch) ->
+                stats.add(new ViewStats(appId, uriId, sketch.estimate()))));
+        stats.sort(Comparator.comparing(ViewStats::getHits).reversed());
+        return stats;
+    }
+
+    private HyperLogLog sketch(Map<Integer, Map<Integer, HyperLogLog>> sketches, int appId, int uriId) {
+        return sketches.computeIfAbsent(appId, key -> new HashMap<>())
+                .computeIfAbsent(uriId, key -> new HyperLogLog(precision));
+    }
+
+    private static MapSqlParameterSource parameters(RollupKey key, byte[] sketch) {
+        return new MapSqlParameterSource()
+                .addValue("bucket", key.getBucket())
+                .addValue("appId", key.getAppId())
+                .addValue("uriId", key.getUriId())
+                .addValue("sketch", sketch);
+    }
+
+    private static String tableName(RollupGranularity granularity) {
+        return "endpoint_ips_" + granularity.name().toLowerCase();
+    }
+}
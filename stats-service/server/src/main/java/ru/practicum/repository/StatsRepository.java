@@ -2,44 +2,53 @@ package ru.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
-import ru.practicum.ViewStatsDto;
 import ru.practicum.model.EndpointHit;
+import ru.practicum.model.ViewStats;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface StatsRepository extends JpaRepository<EndpointHit, Long> {
 
-    @Query(value = "SELECT new ru.practicum.ViewStatsDto(e.app, e.uri, COUNT(e.ip)) " +
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new ru.practicum.model.ViewStats(e.appId, e.uriId, COUNT(e.ip)) " +
             "FROM EndpointHit AS e " +
             "WHERE e.timestamp BETWEEN ?1 AND ?2 " +
-            "AND e.uri IN ?3 " +
-            "GROUP BY e.app, e.uri " +
-            "ORDER BY COUNT(e.uri) DESC")
-    List<ViewStatsDto> getAllRequestsWithUri(LocalDateTime start, LocalDateTime end, List<String> uris);
+            "AND e.uriId IN ?3 " +
+            "GROUP BY e.appId, e.uriId " +
+            "ORDER BY COUNT(e.ip) DESC")
+    Stream<ViewStats> getAllRequestsWithUri(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
 
-    @Query(value = "SELECT new ru.practicum.ViewStatsDto(e.app, e.uri, COUNT(DISTINCT e.ip)) " +
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new ru.practicum.model.ViewStats(e.appId, e.uriId, COUNT(DISTINCT e.ip)) " +
             "FROM EndpointHit AS e " +
             "WHERE e.timestamp BETWEEN ?1 AND ?2 " +
-            "AND e.uri IN ?3 " +
-            "GROUP BY e.app, e.uri " +
+            "AND e.uriId IN ?3 " +
+            "GROUP BY e.appId, e.uriId " +
             "ORDER BY COUNT(DISTINCT e.ip) DESC")
-    List<ViewStatsDto> getUniqueIpRequestsWithUri(LocalDateTime start, LocalDateTime end, List<String> uris);
+    Stream<ViewStats> getUniqueIpRequestsWithUri(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
 
-    @Query(value = "SELECT new ru.practicum.ViewStatsDto(e.app, e.uri, COUNT(DISTINCT e.ip)) " +
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new ru.practicum.model.ViewStats(e.appId, e.uriId, COUNT(DISTINCT e.ip)) " +
             "FROM EndpointHit AS e " +
             "WHERE e.timestamp BETWEEN ?1 AND ?2 " +
-            "GROUP BY e.app, e.uri " +
+            "GROUP BY e.appId, e.uriId " +
             "ORDER BY COUNT(DISTINCT e.ip) DESC")
-    List<ViewStatsDto> getUniqueIpRequestsWithoutUri(LocalDateTime start, LocalDateTime end);
+    Stream<ViewStats> getUniqueIpRequestsWithoutUri(LocalDateTime start, LocalDateTime end);
 
-    @Query(value = "SELECT new ru.practicum.ViewStatsDto(e.app, e.uri, COUNT(e.ip)) " +
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new ru.practicum.model.ViewStats(e.appId, e.uriId, COUNT(e.ip)) " +
             "FROM EndpointHit AS e " +
             "WHERE e.timestamp BETWEEN ?1 AND ?2 " +
-            "GROUP BY e.app, e.uri " +
+            "GROUP BY e.appId, e.uriId " +
             "ORDER BY COUNT(e.ip) DESC")
-    List<ViewStatsDto> getAllRequestsWithoutUri(LocalDateTime start, LocalDateTime end);
+    Stream<ViewStats> getAllRequestsWithoutUri(LocalDateTime start, LocalDateTime end);
 }
@@ -0,0 +1,167 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.PartitionInterval;
+import ru.practicum.model.PartitionRetentionAction;
+import ru.practicum.repository.EndpointPartitionRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Создаёт партиции endpoints заранее, а партиции старше срока хранения удаляет или отсоединяет.
+ * Агрегаты обновляются при вставке хитов, поэтому после удаления партиции сумма хитов по интервалу сохраняется.
+ * Заранее создаются партиции от начала срока хранения до create-ahead интервалов вперёд, так что DDL при приёме
+ * хитов нужен только для времени вне этого окна. Хиты старше срока хранения в endpoints не пишутся вовсе:
+ * их партицию уже удалили бы, поэтому они попадают только в агрегаты.
+ */
+@Slf4j
+@Component
+public class EndpointPartitionManager {
+
+    private static final String PARTITION_PREFIX = EndpointPartitionRepository.PARENT_TABLE + "_p";
+
+    private final EndpointPartitionRepository partitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionInterval interval;
+    private final int createAhead;
+    private final int retentionDays;
+    private final PartitionRetentionAction retentionAction;
+
+    private final Set<LocalDateTime> known = ConcurrentHashMap.newKeySet();
+
+    public EndpointPartitionManager(EndpointPartitionRepository partitionRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${stats.partition.interval:MONTH}") PartitionInterval interval,
+                                    @Value("${stats.partition.create-ahead:2}") int createAhead,
+                                    @Value("${stats.partition.retention-days:0}") int retentionDays,
+                                    @Value("${stats.partition.retention-action:DROP}")
+                                    PartitionRetentionAction retentionAction) {
+        this.partitionRepository = partitionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.interval = interval;
+        this.createAhead = createAhead;
+        this.retentionDays = retentionDays;
+        this.retentionAction = retentionAction;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String name : partitionRepository.findPartitionNames()) {
+            LocalDateTime from = name.startsWith(PARTITION_PREFIX)
+                    ? interval.parseSuffix(name.substring(PARTITION_PREFIX.length()))
+                    : null;
+            if (from != null) {
+                known.add(from);
+            }
+        }
+        maintain();
+    }
+
+    @Scheduled(cron = "${stats.partition.maintenance-cron:0 5 * * * *}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime current = interval.floor(now);
+        LocalDateTime from = retentionDays > 0 ? interval.floor(now.minusDays(retentionDays)) : current;
+        LocalDateTime until = current;
+        for (int i = 0; i < createAhead; i++) {
+            until = interval.next(until);
+        }
+        for (LocalDateTime partition = from; !partition.isAfter(until); partition = interval.next(partition)) {
+            if (!known.contains(partition)) {
+                LocalDateTime missing = partition;
+                transactionTemplate.executeWithoutResult(status -> ensurePartition(missing));
+            }
+        }
+
+        if (retentionDays > 0) {
+            applyRetention(now.minusDays(retentionDays));
+        }
+    }
+
+    /**
+     * Хиты, которые нужно сохранить в endpoints: без тех, чья партиция уже вышла за срок хранения.
+     */
+    public List<EndpointHit> retained(List<EndpointHit> endpointHits) {
+        if (retentionDays <= 0) {
+            return endpointHits;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        List<EndpointHit> retained = new ArrayList<>(endpointHits.size());
+        for (EndpointHit hit : endpointHits) {
+            if (interval.next(interval.floor(hit.getTimestamp())).isAfter(cutoff)) {
+                retained.add(hit);
+            }
+        }
+        if (retained.size() < endpointHits.size()) {
+            log.debug("{} хитов старше {} дней учтены только в агрегатах",
+                    endpointHits.size() - retained.size(), retentionDays);
+        }
+        return retained;
+    }
+
+    /**
+     * Создаёт недостающие партиции для пачки хитов в текущей транзакции. Нужно только для времени вне окна,
+     * подготовленного {@link #maintain()}. Отдельная транзакция здесь не подходит: если текущая уже вставляла
+     * в endpoints, DDL ждал бы её завершения.
+     */
+    public void ensurePartitions(List<EndpointHit> endpointHits) {
+        Set<LocalDateTime> missing = new TreeSet<>();
+        for (EndpointHit hit : endpointHits) {
+            LocalDateTime from = interval.floor(hit.getTimestamp());
+            if (!known.contains(from)) {
+                missing.add(from);
+            }
+        }
+        if (!missing.isEmpty()) {
+            log.warn("Партиции {} созданы при приёме хитов, вне заранее подготовленного окна", missing);
+        }
+        missing.forEach(this::ensurePartition);
+    }
+
+    private void ensurePartition(LocalDateTime from) {
+        partitionRepository.create(PARTITION_PREFIX + interval.suffix(from), from, interval.next(from));
+        // При откате транзакции партиция исчезнет, поэтому запоминаем её только после фиксации
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                known.add(from);
+            }
+        });
+    }
+
+    private synchronized void applyRetention(LocalDateTime cutoff) {
+        for (String name : partitionRepository.findPartitionNames()) {
+            if (!name.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            LocalDateTime from = interval.parseSuffix(name.substring(PARTITION_PREFIX.length()));
+            if (from == null || interval.next(from).isAfter(cutoff)) {
+                continue;
+            }
+
+            known.remove(from);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (retentionAction == PartitionRetentionAction.DETACH) {
+                    partitionRepository.detach(name);
+                } else {
+                    partitionRepository.drop(name);
+                }
+            });
+            log.info("Партиция {} старше {} дней: {}", name, retentionDays, retentionAction);
+        }
+    }
+}
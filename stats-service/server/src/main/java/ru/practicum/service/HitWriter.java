@@ -0,0 +1,76 @@
+package ru.practicum.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.counter.RecentHitCounters;
+import ru.practicum.counter.RecentIpSketches;
+import ru.practicum.mapper.EndpointHitMapper;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.repository.EndpointDictionary;
+import ru.practicum.repository.EndpointHitBatchRepository;
+import ru.practicum.repository.HitRollupRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Сохраняет пачку хитов в endpoints и обновляет агрегаты. Вызывается внутри транзакции.
+ */
+@Component
+public class HitWriter {
+
+    private final EndpointHitMapper endpointHitMapper;
+
+    private final EndpointDictionary endpointDictionary;
+
+    private final EndpointPartitionManager endpointPartitionManager;
+
+    private final EndpointHitBatchRepository endpointHitBatchRepository;
+
+    private final HitRollupRepository hitRollupRepository;
+
+    private final RecentHitCounters recentHitCounters;
+
+    private final RecentIpSketches recentIpSketches;
+
+    private final boolean rollupEnabled;
+
+    public HitWriter(EndpointHitMapper endpointHitMapper,
+                     EndpointDictionary endpointDictionary,
+                     EndpointPartitionManager endpointPartitionManager,
+                     EndpointHitBatchRepository endpointHitBatchRepository,
+                     HitRollupRepository hitRollupRepository,
+                     Optional<RecentHitCounters> recentHitCounters,
+                     Optional<RecentIpSketches> recentIpSketches,
+                     @Value("${stats.rollup.enabled:true}") boolean rollupEnabled) {
+        this.endpointHitMapper = endpointHitMapper;
+        this.endpointDictionary = endpointDictionary;
+        this.endpointPartitionManager = endpointPartitionManager;
+        this.endpointHitBatchRepository = endpointHitBatchRepository;
+        this.hitRollupRepository = hitRollupRepository;
+        this.recentHitCounters = recentHitCounters.orElse(null);
+        this.recentIpSketches = recentIpSketches.orElse(null);
+        this.rollupEnabled = rollupEnabled;
+    }
+
+    public int write(List<EndpointHitDto> endpointHitDtos) {
+        endpointDictionary.resolve(
+                endpointHitDtos.stream().map(EndpointHitDto::getApp).collect(Collectors.toList()),
+                endpointHitDtos.stream().map(EndpointHitDto::getUri).collect(Collectors.toList()));
+        List<EndpointHit> endpointHits = endpointHitMapper.convertToEndpointHits(endpointHitDtos);
+        List<EndpointHit> retained = endpointPartitionManager.retained(endpointHits);
+        endpointPartitionManager.ensurePartitions(retained);
+        int inserted = retained.isEmpty() ? 0 : endpointHitBatchRepository.insertAll(retained);
+        if (recentHitCounters != null) {
+            recentHitCounters.add(endpointHits);
+        } else if (rollupEnabled) {
+            hitRollupRepository.increment(endpointHits);
+        }
+        if (recentIpSketches != null) {
+            recentIpSketches.add(endpointHits);
+        }
+        return inserted + endpointHits.size() - retained.size();
+    }
+}
@@ -1,13 +1,34 @@
 package ru.practicum.service;
 
 import ru.practicum.EndpointHitDto;
+import ru.practicum.HitBatchResultDto;
 import ru.practicum.ViewStatsDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface StatsService {
     void create(EndpointHitDto endpointHitDto);
 
-    List<ViewStatsDto> getStatistics(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique);
+    HitBatchResultDto createAll(List<EndpointHitDto> endpointHitDtos);
+
+    HitBatchResultDto createAll(Stream<EndpointHitDto> endpointHitDtos);
+
+    List<ViewStatsDto> getStatistics(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                     Boolean approximate);
+
+    /**
+     * Будет ли ответ оценкой по скетчам. Если скетчи выключены, approximate игнорируется и счёт точный.
+     */
+    boolean isApproximate(Boolean unique, Boolean approximate);
+
+    void checkInterval(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Передаёт статистику в consumer по мере чтения курсора, не собирая её в памяти.
+     */
+    void streamStatistics(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                          Boolean approximate, Consumer<ViewStatsDto> consumer);
 }
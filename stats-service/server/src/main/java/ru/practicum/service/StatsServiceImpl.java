@@ -1,48 +1,218 @@
 package ru.practicum.service;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.EndpointHitDto;
+import ru.practicum.HitBatchResultDto;
 import ru.practicum.ViewStatsDto;
+import ru.practicum.counter.RecentHitCounters;
+import ru.practicum.counter.RecentIpSketches;
 import ru.practicum.exception.ValidationException;
-import ru.practicum.mapper.EndpointHitMapper;
+import ru.practicum.mapper.IpAddressCodec;
+import ru.practicum.mapper.StatsMapper;
+import ru.practicum.model.ViewStats;
+import ru.practicum.repository.EndpointDictionary;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.IpSketchRepository;
 import ru.practicum.repository.StatsRepository;
+import ru.practicum.wal.HitLog;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class StatsServiceImpl implements StatsService {
 
     private final StatsRepository statsRepository;
 
-    private final EndpointHitMapper endpointHitMapper;
+    private final HitRollupRepository hitRollupRepository;
 
+    private final IpSketchRepository ipSketchRepository;
+
+    private final EndpointDictionary endpointDictionary;
+
+    private final StatsMapper statsMapper;
+
+    private final HitWriter hitWriter;
+
+    private final HitLog hitLog;
+
+    private final RecentHitCounters recentHitCounters;
+
+    private final RecentIpSketches recentIpSketches;
+
+    private final int batchSize;
+
+    private final boolean rollupEnabled;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public StatsServiceImpl(StatsRepository statsRepository,
+                            HitRollupRepository hitRollupRepository,
+                            IpSketchRepository ipSketchRepository,
+                            EndpointDictionary endpointDictionary,
+                            StatsMapper statsMapper,
+                            HitWriter hitWriter,
+                            PlatformTransactionManager transactionManager,
+                            Optional<HitLog> hitLog,
+                            Optional<RecentHitCounters> recentHitCounters,
+                            Optional<RecentIpSketches> recentIpSketches,
+                            @Value("${stats.ingest.batch-size:1000}") int batchSize,
+                            @Value("${stats.rollup.enabled:true}") boolean rollupEnabled) {
+        this.statsRepository = statsRepository;
+        this.hitRollupRepository = hitRollupRepository;
+        this.ipSketchRepository = ipSketchRepository;
+        this.endpointDictionary = endpointDictionary;
+        this.statsMapper = statsMapper;
+        this.hitWriter = hitWriter;
+        this.hitLog = hitLog.orElse(null);
+        this.recentHitCounters = recentHitCounters.orElse(null);
+        this.recentIpSketches = recentIpSketches.orElse(null);
+        this.batchSize = batchSize;
+        this.rollupEnabled = rollupEnabled;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Пока скетчи выключены, хиты в них не попадают: после включения они покрывают только новые хиты.
+     */
+    @PostConstruct
+    public void resetIpSketchCoverage() {
+        if (recentIpSketches == null) {
+            ipSketchRepository.resetCoverage();
+        }
+    }
+
+    /**
+     * Запись в журнал не открывает транзакцию и не занимает соединение из пула, транзакция
+     * нужна только при записи прямо в базу.
+     */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void create(EndpointHitDto endpointHitDto) {
-        statsRepository.save(endpointHitMapper.convertToEndpointHit(endpointHitDto));
+        if (hitLog != null) {
+            // Некорректный IP нужно отклонить до подтверждения хита, а не при переносе из журнала
+            IpAddressCodec.encode(endpointHitDto.getIp());
+            hitLog.append(endpointHitDto);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> hitWriter.write(List.of(endpointHitDto)));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public HitBatchResultDto createAll(List<EndpointHitDto> endpointHitDtos) {
+        return createAll(endpointHitDtos.stream());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public HitBatchResultDto createAll(Stream<EndpointHitDto> endpointHitDtos) {
+        Iterator<EndpointHitDto> iterator = endpointHitDtos.iterator();
+        if (hitLog != null) {
+            // Пачка проверяется целиком до первой записи в журнал: иначе при ошибке в середине
+            // клиент получит 400, а начало пачки уже будет подтверждено
+            List<EndpointHitDto> hits = new ArrayList<>();
+            while (iterator.hasNext()) {
+                EndpointHitDto endpointHitDto = iterator.next();
+                IpAddressCodec.encode(endpointHitDto.getIp());
+                hits.add(endpointHitDto);
+            }
+            hitLog.appendAll(hits);
+            return new HitBatchResultDto((long) hits.size(), List.of(hits.size()));
+        }
+        return transactionTemplate.execute(status -> writeBatches(iterator));
+    }
+
+    private HitBatchResultDto writeBatches(Iterator<EndpointHitDto> iterator) {
+        List<Integer> batches = new ArrayList<>();
+        long accepted = 0;
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() == batchSize || !iterator.hasNext()) {
+                int inserted = hitWriter.write(batch);
+                batches.add(inserted);
+                accepted += inserted;
+                batch.clear();
+            }
+        }
+
+        return new HitBatchResultDto(accepted, batches);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStatistics(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                            Boolean approximate) {
+        List<ViewStatsDto> stats = new ArrayList<>();
+        streamStatistics(start, end, uris, unique, approximate, stats::add);
+        return stats;
+    }
+
+    @Override
+    public boolean isApproximate(Boolean unique, Boolean approximate) {
+        return unique && approximate && recentIpSketches != null;
     }
 
     @Override
-    public List<ViewStatsDto> getStatistics(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+    public void checkInterval(LocalDateTime start, LocalDateTime end) {
         if (end.isBefore(start)) {
             throw new ValidationException("Время завершения раньше начала");
         }
+    }
+
+    @Override
+    public void streamStatistics(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                 Boolean approximate, Consumer<ViewStatsDto> consumer) {
+        checkInterval(start, end);
+
+        List<Integer> uriIds = null;
+        if (uris != null) {
+            uriIds = endpointDictionary.findUriIds(uris);
+            if (uriIds.isEmpty()) {
+                return;
+            }
+        }
 
+        try (Stream<ViewStats> viewStats = streamViewStats(start, end, uriIds, unique, approximate)) {
+            viewStats.map(statsMapper::convertToViewStatsDto).forEach(consumer);
+        }
+    }
+
+    private Stream<ViewStats> streamViewStats(LocalDateTime start, LocalDateTime end, List<Integer> uriIds,
+                                              Boolean unique, Boolean approximate) {
         if (unique) {
-            if (uris == null) {
+            if (isApproximate(unique, approximate)) {
+                return ipSketchRepository.getUniqueHits(start, end, uriIds, recentIpSketches.snapshot(),
+                        recentIpSketches.getCoveredFrom()).stream();
+            }
+            if (uriIds == null) {
                 return statsRepository.getUniqueIpRequestsWithoutUri(start, end);
             }
-            return statsRepository.getUniqueIpRequestsWithUri(start, end, uris);
+            return statsRepository.getUniqueIpRequestsWithUri(start, end, uriIds);
         } else {
-            if (uris == null) {
+            if (recentHitCounters != null && recentHitCounters.covers(start)) {
+                return recentHitCounters.getHits(start, end, uriIds).stream();
+            }
+            if (rollupEnabled) {
+                return hitRollupRepository.getHits(start, end, uriIds);
+            }
+            if (uriIds == null) {
                 return statsRepository.getAllRequestsWithoutUri(start, end);
             }
-            return statsRepository.getAllRequestsWithUri(start, end, uris);
+            return statsRepository.getAllRequestsWithUri(start, end, uriIds);
         }
     }
 
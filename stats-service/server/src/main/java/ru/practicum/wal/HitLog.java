@@ -0,0 +1,181 @@
+package ru.practicum.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.model.HitLogCheckpoint;
+import ru.practicum.repository.HitLogCheckpointRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Сегментированный журнал хитов на локальном диске. Хит подтверждается сразу после записи в журнал,
+ * в таблицу endpoints его переносит {@link HitLogFlusher}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "wal")
+public class HitLog {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final HitLogFsyncPolicy fsyncPolicy;
+
+    private volatile HitLogSegment active;
+
+    public HitLog(HitLogCheckpointRepository checkpointRepository,
+                  @Value("${stats.wal.dir:wal}") String directory,
+                  @Value("${stats.wal.segment-size:67108864}") int segmentSize,
+                  @Value("${stats.wal.fsync-policy:INTERVAL}") HitLogFsyncPolicy fsyncPolicy) throws IOException {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+
+        Files.createDirectories(this.directory);
+        List<Long> sequences = segmentSequences();
+        // Номера продолжаются с контрольной точки, даже если каталог журнала пропал или пуст:
+        // сегменты с меньшими номерами загрузчик считает уже перенесёнными и удаляет
+        HitLogCheckpoint checkpoint = checkpointRepository.find();
+        long next = Math.max(sequences.isEmpty() ? 0 : sequences.get(sequences.size() - 1) + 1,
+                checkpoint.getPosition() > 0 ? checkpoint.getSegment() + 1 : checkpoint.getSegment());
+        if (!sequences.isEmpty()) {
+            log.info("В журнале хитов найдено {} сегментов для повторной загрузки", sequences.size());
+        }
+        this.active = HitLogSegment.create(next, segmentPath(next), segmentSize);
+    }
+
+    public void append(EndpointHitDto endpointHitDto) {
+        appendAll(List.of(endpointHitDto));
+    }
+
+    /**
+     * Дописывает пачку хитов под одной блокировкой и при политике ALWAYS синхронизирует её с диском один раз.
+     * Пачка дописывается целиком или не дописывается вовсе: хиты кодируются, а нужные ей новые сегменты
+     * создаются до первой записи, поэтому ошибка не оставляет в журнале начало пачки.
+     */
+    public synchronized void appendAll(List<EndpointHitDto> endpointHitDtos) {
+        List<byte[]> payloads = new ArrayList<>(endpointHitDtos.size());
+        for (EndpointHitDto endpointHitDto : endpointHitDtos) {
+            byte[] payload = HitLogCodec.encode(endpointHitDto);
+            if (HitLogSegment.HEADER_SIZE + payload.length > segmentSize) {
+                throw new IllegalArgumentException("Хит не помещается в сегмент журнала");
+            }
+            payloads.add(payload);
+        }
+
+        List<HitLogSegment> segments = new ArrayList<>();
+        segments.add(active);
+        int free = active.remaining();
+        try {
+            for (byte[] payload : payloads) {
+                int size = HitLogSegment.HEADER_SIZE + payload.length;
+                if (size > free) {
+                    long sequence = segments.get(segments.size() - 1).getSequence() + 1;
+                    segments.add(HitLogSegment.create(sequence, segmentPath(sequence), segmentSize));
+                    free = segmentSize;
+                }
+                free -= size;
+            }
+        } catch (IOException e) {
+            discard(segments.subList(1, segments.size()));
+            throw new UncheckedIOException(e);
+        }
+
+        int current = 0;
+        for (byte[] payload : payloads) {
+            if (!segments.get(current).append(payload)) {
+                segments.get(++current).append(payload);
+            }
+        }
+        if (fsyncPolicy == HitLogFsyncPolicy.ALWAYS) {
+            segments.forEach(HitLogSegment::force);
+        }
+        if (segments.size() > 1) {
+            active = segments.get(segments.size() - 1);
+            for (HitLogSegment sealed : segments.subList(0, segments.size() - 1)) {
+                try {
+                    sealed.close();
+                } catch (IOException e) {
+                    log.warn("Не удалось закрыть сегмент {}: {}", sealed.getPath(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stats.wal.fsync-interval-ms:1000}")
+    public void forceOnInterval() {
+        if (fsyncPolicy == HitLogFsyncPolicy.INTERVAL) {
+            active.force();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        active.close();
+    }
+
+    long activeSequence() {
+        return active.getSequence();
+    }
+
+    HitLogSegment openForRead(long sequence) throws IOException {
+        HitLogSegment current = active;
+        if (current.getSequence() == sequence) {
+            return current;
+        }
+        return HitLogSegment.open(sequence, segmentPath(sequence));
+    }
+
+    List<Long> segmentSequences() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void delete(long sequence) throws IOException {
+        if (sequence != active.getSequence()) {
+            Files.deleteIfExists(segmentPath(sequence));
+        }
+    }
+
+    /**
+     * Удаляет сегменты, созданные для пачки, которая так и не была записана.
+     */
+    private void discard(List<HitLogSegment> segments) {
+        for (HitLogSegment segment : segments) {
+            try {
+                segment.close();
+                Files.deleteIfExists(segment.getPath());
+            } catch (IOException e) {
+                log.warn("Не удалось удалить пустой сегмент {}: {}", segment.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+}
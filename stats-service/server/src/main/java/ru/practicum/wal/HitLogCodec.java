@@ -0,0 +1,50 @@
+package ru.practicum.wal;
+
+import ru.practicum.EndpointHitDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+final class HitLogCodec {
+
+    private HitLogCodec() {
+    }
+
+    static byte[] encode(EndpointHitDto endpointHitDto) {
+        byte[] app = endpointHitDto.getApp().getBytes(StandardCharsets.UTF_8);
+        byte[] uri = endpointHitDto.getUri().getBytes(StandardCharsets.UTF_8);
+        byte[] ip = endpointHitDto.getIp().getBytes(StandardCharsets.UTF_8);
+        LocalDateTime timestamp = endpointHitDto.getTimestamp();
+
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Short.BYTES + app.length + uri.length + ip.length
+                + Long.BYTES + Integer.BYTES);
+        putString(buffer, app);
+        putString(buffer, uri);
+        putString(buffer, ip);
+        buffer.putLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(timestamp.getNano());
+        return buffer.array();
+    }
+
+    static EndpointHitDto decode(ByteBuffer buffer) {
+        String app = getString(buffer);
+        String uri = getString(buffer);
+        String ip = getString(buffer);
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        return new EndpointHitDto(app, uri, ip, LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package ru.practicum.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.exception.ValidationException;
+import ru.practicum.model.HitLogCheckpoint;
+import ru.practicum.repository.HitDeadLetterRepository;
+import ru.practicum.repository.HitLogCheckpointRepository;
+import ru.practicum.service.HitWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Переносит хиты из журнала в таблицу endpoints. Позиция чтения хранится в hit_log_checkpoint
+ * и обновляется в той же транзакции, что и вставка, поэтому после сбоя загрузка продолжается без дублей.
+ * Хиты, которые база не принимает, откладываются в hit_log_dead_letters и не задерживают остальные.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "wal")
+public class HitLogFlusher {
+
+    private final HitLog hitLog;
+    private final HitWriter hitWriter;
+    private final HitLogCheckpointRepository checkpointRepository;
+    private final HitDeadLetterRepository deadLetterRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private HitLogSegment segment;
+    private int position;
+
+    public HitLogFlusher(HitLog hitLog,
+                         HitWriter hitWriter,
+                         HitLogCheckpointRepository checkpointRepository,
+                         HitDeadLetterRepository deadLetterRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${stats.ingest.batch-size:1000}") int batchSize) {
+        this.hitLog = hitLog;
+        this.hitWriter = hitWriter;
+        this.checkpointRepository = checkpointRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.wal.flush-interval-ms:200}")
+    public synchronized void flush() {
+        try {
+            if (segment == null) {
+                seek(checkpointRepository.find());
+            }
+
+            while (true) {
+                boolean sealed = segment.getSequence() < hitLog.activeSequence();
+                List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+                List<Integer> ends = new ArrayList<>(batchSize);
+                int next = position;
+                ByteBuffer payload;
+                while (batch.size() < batchSize && (payload = segment.read(next)) != null) {
+                    next += HitLogSegment.HEADER_SIZE + payload.remaining();
+                    batch.add(HitLogCodec.decode(payload));
+                    ends.add(next);
+                }
+
+                if (!batch.isEmpty()) {
+                    try {
+                        write(batch, new HitLogCheckpoint(segment.getSequence(), next));
+                        position = next;
+                    } catch (RuntimeException e) {
+                        log.warn("Пачка из {} хитов сегмента {} не записалась, переносим по одному: {}",
+                                batch.size(), segment.getSequence(), e.getMessage());
+                        writeOneByOne(batch, ends);
+                    }
+                } else if (sealed) {
+                    seek(new HitLogCheckpoint(segment.getSequence() + 1, 0));
+                    checkpointRepository.save(new HitLogCheckpoint(segment.getSequence(), position));
+                } else {
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Ошибка переноса хитов из журнала: {}", e.getMessage());
+            release();
+        }
+    }
+
+    private void write(List<EndpointHitDto> batch, HitLogCheckpoint checkpoint) {
+        transactionTemplate.executeWithoutResult(status -> {
+            hitWriter.write(batch);
+            checkpointRepository.save(checkpoint);
+        });
+    }
+
+    /**
+     * Переносит пачку по одному хиту, чтобы одна некорректная запись не останавливала загрузку навсегда.
+     * Хит, который база отвергает по содержимому, откладывается в hit_log_dead_letters, а позиция
+     * сдвигается за него. Ошибки другого рода (база недоступна) прерывают перенос до следующего запуска.
+     */
+    private void writeOneByOne(List<EndpointHitDto> batch, List<Integer> ends) {
+        long sequence = segment.getSequence();
+        for (int i = 0; i < batch.size(); i++) {
+            EndpointHitDto endpointHitDto = batch.get(i);
+            HitLogCheckpoint checkpoint = new HitLogCheckpoint(sequence, ends.get(i));
+            try {
+                write(List.of(endpointHitDto), checkpoint);
+            } catch (DataIntegrityViolationException | ValidationException | IllegalArgumentException e) {
+                log.error("Хит из сегмента {} на позиции {} отложен в hit_log_dead_letters: {}",
+                        sequence, position, e.getMessage());
+                int deadPosition = position;
+                transactionTemplate.executeWithoutResult(status -> {
+                    deadLetterRepository.save(sequence, deadPosition, endpointHitDto, e.getMessage());
+                    checkpointRepository.save(checkpoint);
+                });
+            }
+            position = checkpoint.getPosition();
+        }
+    }
+
+    private void seek(HitLogCheckpoint checkpoint) throws IOException {
+        release();
+        for (long sequence : hitLog.segmentSequences()) {
+            if (sequence < checkpoint.getSegment()) {
+                hitLog.delete(sequence);
+            } else {
+                if (sequence == checkpoint.getSegment()) {
+                    position = checkpoint.getPosition();
+                } else {
+                    log.warn("Сегмента {} из контрольной точки нет в журнале, загрузка продолжается с сегмента {}",
+                            checkpoint.getSegment(), sequence);
+                    position = 0;
+                }
+                segment = hitLog.openForRead(sequence);
+                return;
+            }
+        }
+        // Активный сегмент существует всегда, сюда попадаем, только если его номер меньше контрольной точки
+        log.warn("Сегмента {} из контрольной точки нет в журнале, загрузка продолжается с активного сегмента",
+                checkpoint.getSegment());
+        segment = hitLog.openForRead(hitLog.activeSequence());
+        position = 0;
+    }
+
+    private void release() {
+        if (segment != null && segment.getSequence() != hitLog.activeSequence()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Не удалось закрыть сегмент {}: {}", segment.getPath(), e.getMessage());
+            }
+        }
+        segment = null;
+    }
+}
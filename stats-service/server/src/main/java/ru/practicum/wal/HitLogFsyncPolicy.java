@@ -0,0 +1,7 @@
+package ru.practicum.wal;
+
+public enum HitLogFsyncPolicy {
+    ALWAYS,
+    INTERVAL,
+    NONE
+}
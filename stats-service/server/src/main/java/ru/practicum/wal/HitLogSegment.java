@@ -0,0 +1,115 @@
+package ru.practicum.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Файл сегмента журнала, отображённый в память. Запись: [длина][crc32][данные], нулевая длина — конец данных.
+ */
+class HitLogSegment implements Closeable {
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final long sequence;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean writable;
+    private volatile int committed;
+
+    private HitLogSegment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer, boolean writable) {
+        this.sequence = sequence;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.writable = writable;
+    }
+
+    static HitLogSegment create(long sequence, Path path, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new HitLogSegment(sequence, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), true);
+    }
+
+    static HitLogSegment open(long sequence, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new HitLogSegment(sequence, path, channel,
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), false);
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int remaining() {
+        return buffer.capacity() - committed;
+    }
+
+    boolean append(byte[] payload) {
+        int position = committed;
+        int end = position + HEADER_SIZE + payload.length;
+        if (end > buffer.capacity()) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer target = buffer.duplicate();
+        target.position(position + HEADER_SIZE);
+        target.put(payload);
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(position, payload.length);
+        committed = end;
+        return true;
+    }
+
+    /**
+     * Возвращает данные записи по смещению или {@code null}, если дальше записей нет
+     * (конец сегмента, недописанная или повреждённая запись).
+     */
+    ByteBuffer read(int offset) {
+        int limit = writable ? committed : buffer.capacity();
+        if (offset + HEADER_SIZE > limit) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_SIZE + length > limit) {
+            return null;
+        }
+
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(offset + HEADER_SIZE).limit(offset + HEADER_SIZE + length);
+        payload = payload.slice();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+            return null;
+        }
+        return payload;
+    }
+
+    void force() {
+        if (writable) {
+            buffer.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            force();
+            channel.close();
+        }
+    }
+}
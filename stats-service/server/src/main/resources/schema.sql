@@ -1,9 +1,86 @@
-DROP TABLE IF EXISTS endpoints;
+DROP TABLE IF EXISTS endpoints, endpoint_hits_minute, endpoint_hits_hour, endpoint_hits_day,
+  endpoint_ips_hour, endpoint_ips_day, endpoint_ips_coverage, apps, uris;
+
+CREATE TABLE IF NOT EXISTS apps (
+  id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS uris (
+  id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  uri VARCHAR(255) NOT NULL UNIQUE
+);
 
 CREATE TABLE IF NOT EXISTS endpoints (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+  app_id INT NOT NULL REFERENCES apps (id),
+  uri_id INT NOT NULL REFERENCES uris (id),
+  ip BYTEA NOT NULL,
+  timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE INDEX IF NOT EXISTS idx_endpoints_timestamp ON endpoints (timestamp);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_minute (
+  bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  hits BIGINT NOT NULL,
+  PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_hour (
+  bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  hits BIGINT NOT NULL,
+  PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_day (
+  bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  hits BIGINT NOT NULL,
+  PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_ips_hour (
+  bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  sketch BYTEA NOT NULL,
+  PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_ips_day (
+  bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  sketch BYTEA NOT NULL,
+  PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_ips_coverage (
+  id INT PRIMARY KEY,
+  covered_from TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS hit_log_checkpoint (
+  id INT PRIMARY KEY,
+  segment BIGINT NOT NULL,
+  position BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS hit_log_dead_letters (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  app VARCHAR(255) NOT NULL,
-  uri VARCHAR(255) NOT NULL,
-  ip VARCHAR(512) NOT NULL,
-  timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL
+  segment BIGINT NOT NULL,
+  position BIGINT NOT NULL,
+  app TEXT,
+  uri TEXT,
+  ip TEXT,
+  timestamp TIMESTAMP WITHOUT TIME ZONE,
+  error TEXT NOT NULL,
+  created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now()
 );
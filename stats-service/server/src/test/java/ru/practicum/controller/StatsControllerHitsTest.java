@@ -0,0 +1,87 @@
+package ru.practicum.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.EmbeddedPostgresTest;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет пакетный приём хитов через POST /hits: пачки по stats.ingest.batch-size в одной транзакции.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "stats.ingest.batch-size=2")
+class StatsControllerHitsTest extends EmbeddedPostgresTest {
+
+    private static final String NOW = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void jsonArrayIsWrittenInBatches() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 1; i <= 5; i++) {
+            body.append(i == 1 ? "" : ",").append(hit("bulk-json", "/events/" + i, "10.3.0." + i));
+        }
+        body.append(']');
+
+        mockMvc.perform(post("/hits").contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(5))
+                .andExpect(jsonPath("$.batches", contains(2, 2, 1)));
+
+        assertThat(countHits("bulk-json")).isEqualTo(5);
+    }
+
+    @Test
+    void ndjsonStreamIsWrittenInBatches() throws Exception {
+        String body = hit("bulk-ndjson", "/events/1", "10.3.1.1") + "\n\n" +
+                hit("bulk-ndjson", "/events/2", "10.3.1.2") + "\n" +
+                hit("bulk-ndjson", "/events/3", "10.3.1.3") + "\n";
+
+        mockMvc.perform(post("/hits").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(3))
+                .andExpect(jsonPath("$.batches", contains(2, 1)));
+
+        assertThat(countHits("bulk-ndjson")).isEqualTo(3);
+    }
+
+    @Test
+    void invalidLineRejectsWholeStream() throws Exception {
+        String body = hit("bulk-invalid", "/events/1", "10.3.2.1") + "\n" +
+                hit("bulk-invalid", "/events/2", "10.3.2.2") + "\n" +
+                hit("bulk-invalid", "/events/3", "") + "\n";
+
+        mockMvc.perform(post("/hits").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isBadRequest());
+
+        // Первая пачка уже была записана, но откатилась вместе с транзакцией
+        assertThat(countHits("bulk-invalid")).isZero();
+    }
+
+    private Long countHits(String app) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM endpoints e JOIN apps a ON a.id = e.app_id " +
+                "WHERE a.name = ?", Long.class, app);
+    }
+
+    private static String hit(String app, String uri, String ip) {
+        return String.format("{\"app\":\"%s\",\"uri\":\"%s\",\"ip\":\"%s\",\"timestamp\":\"%s\"}", app, uri, ip, NOW);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.StatsSmile;
+import ru.practicum.ViewStatsDto;
+import ru.practicum.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет потоковые ответы GET /stats: JSON-массив, NDJSON и Smile должны содержать одни и те же строки
+ * в порядке убывания хитов. Строк больше, чем пишется между сбросами буфера.
+ */
+@AutoConfigureMockMvc
+class StatsControllerStreamingTest extends EmbeddedPostgresTest {
+
+    private static final String APP = "streaming-test";
+    private static final int URIS = 300;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StatsService statsService;
+
+    @BeforeEach
+    void fill() {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < URIS; i++) {
+            for (int n = 0; n <= i % 5; n++) {
+                hits.add(new EndpointHitDto(APP, "/streaming/" + i, "10.8.0." + n, START.plusMinutes(i)));
+            }
+        }
+        statsService.createAll(hits);
+    }
+
+    @Test
+    void jsonArrayNdjsonAndSmileStreamSameRows() throws Exception {
+        MvcResult json = perform(stats(false), MediaType.APPLICATION_JSON);
+        List<ViewStatsDto> fromJson = objectMapper.readValue(json.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+
+        MvcResult ndjson = perform(stats(false).accept(MediaType.APPLICATION_NDJSON), MediaType.APPLICATION_NDJSON);
+        String[] lines = ndjson.getResponse().getContentAsString().split("\n");
+        List<ViewStatsDto> fromNdjson = new ArrayList<>();
+        for (String line : lines) {
+            fromNdjson.add(objectMapper.readValue(line, ViewStatsDto.class));
+        }
+
+        MediaType smile = MediaType.parseMediaType(StatsSmile.MEDIA_TYPE);
+        MvcResult smileResult = perform(stats(false).accept(smile), smile);
+        List<ViewStatsDto> fromSmile = StatsSmile.createMapper().readValue(
+                smileResult.getResponse().getContentAsByteArray(), new TypeReference<>() {
+                });
+
+        assertThat(only(fromJson)).hasSize(URIS);
+        assertThat(only(fromJson).stream().mapToLong(ViewStatsDto::getHits).sum()).isEqualTo(expectedHits());
+        assertThat(only(fromJson).stream().map(ViewStatsDto::getHits).collect(Collectors.toList()))
+                .isSortedAccordingTo((first, second) -> Long.compare(second, first));
+        assertThat(fromNdjson).containsExactlyElementsOf(fromJson);
+        assertThat(fromSmile).containsExactlyElementsOf(fromJson);
+    }
+
+    @Test
+    void uniqueCountsAreStreamedFromCursor() throws Exception {
+        MvcResult ndjson = perform(stats(true).accept(MediaType.APPLICATION_NDJSON), MediaType.APPLICATION_NDJSON);
+
+        List<ViewStatsDto> stats = new ArrayList<>();
+        for (String line : ndjson.getResponse().getContentAsString().split("\n")) {
+            stats.add(objectMapper.readValue(line, ViewStatsDto.class));
+        }
+
+        assertThat(only(stats)).hasSize(URIS);
+        assertThat(only(stats).stream().mapToLong(ViewStatsDto::getHits).sum()).isEqualTo(expectedHits());
+    }
+
+    @Test
+    void unknownUriGivesEmptyArray() throws Exception {
+        MvcResult result = perform(stats(false).param("uris", "/streaming/unknown"), MediaType.APPLICATION_JSON);
+
+        assertThat(result.getResponse().getContentAsString()).isEqualTo("[]");
+    }
+
+    private MockHttpServletRequestBuilder stats(boolean unique) {
+        return get("/stats")
+                .param("start", "2025-06-01 00:00:00")
+                .param("end", "2025-06-02 00:00:00")
+                .param("unique", String.valueOf(unique));
+    }
+
+    private MvcResult perform(MockHttpServletRequestBuilder request, MediaType contentType) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(contentType))
+                .andReturn();
+    }
+
+    private static List<ViewStatsDto> only(List<ViewStatsDto> stats) {
+        return stats.stream().filter(viewStatsDto -> APP.equals(viewStatsDto.getApp())).collect(Collectors.toList());
+    }
+
+    private static long expectedHits() {
+        long hits = 0;
+        for (int i = 0; i < URIS; i++) {
+            hits += i % 5 + 1;
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.counter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.ViewStats;
+import ru.practicum.repository.HitRollupRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RecentHitCountersTest {
+
+    private static final long WINDOW_MINUTES = 15;
+
+    private final HitRollupRepository hitRollupRepository = mock(HitRollupRepository.class);
+    private final RecentHitCounters counters = new RecentHitCounters(hitRollupRepository,
+            mock(PlatformTransactionManager.class), WINDOW_MINUTES);
+    private final LocalDateTime second = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusMinutes(1);
+
+    @Test
+    void coversOnlyWindowStartedAfterLaunchAndInsideWindow() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(counters.covers(now.plusSeconds(2))).isTrue();
+        assertThat(counters.covers(now.minusMinutes(1))).isFalse();
+        assertThat(counters.covers(now.minusMinutes(WINDOW_MINUTES + 1))).isFalse();
+    }
+
+    @Test
+    void rangeIncludesBothEndSecondsAndFiltersUris() {
+        counters.add(List.of(
+                hit(1, 10, second),
+                hit(1, 10, second.plusSeconds(1)),
+                hit(1, 10, second.plusSeconds(1)),
+                hit(1, 11, second.plusSeconds(1)),
+                hit(1, 10, second.plusSeconds(2)),
+                hit(1, 10, second.plusSeconds(3))));
+
+        assertThat(hits(second.plusSeconds(1), second.plusSeconds(2), null)).isEqualTo(Map.of(10, 3L, 11, 1L));
+        assertThat(hits(second.plusSeconds(1), second.plusSeconds(1), null)).isEqualTo(Map.of(10, 2L, 11, 1L));
+        assertThat(hits(second, second.plusSeconds(3), List.of(10))).isEqualTo(Map.of(10, 5L));
+        assertThat(hits(second.plusSeconds(4), second.plusSeconds(10), null)).isEmpty();
+    }
+
+    @Test
+    void hitOlderThanWindowGoesStraightToRollups() {
+        EndpointHit old = hit(1, 10, LocalDateTime.now().minusMinutes(WINDOW_MINUTES + 5));
+
+        counters.add(List.of(old, hit(1, 10, second)));
+
+        verify(hitRollupRepository).increment(List.of(old));
+        assertThat(hits(second.minusMinutes(WINDOW_MINUTES), second, null)).isEqualTo(Map.of(10, 1L));
+    }
+
+    @Test
+    void flushWritesEachCountOnceAndKeepsTotalsForQueries() {
+        List<Map<RollupKey, Long>> written = captureWrites();
+        counters.add(List.of(hit(1, 10, second), hit(1, 10, second)));
+
+        counters.flush();
+        counters.add(List.of(hit(1, 10, second)));
+        counters.flush();
+        counters.flush();
+
+        assertThat(written).containsExactly(
+                Map.of(new RollupKey(second, 1, 10), 2L),
+                Map.of(new RollupKey(second, 1, 10), 1L));
+        assertThat(hits(second, second, null)).isEqualTo(Map.of(10, 3L));
+    }
+
+    @Test
+    void failedFlushKeepsPendingCountsForNextFlush() {
+        counters.add(List.of(hit(1, 10, second), hit(1, 10, second)));
+        doThrow(new DataAccessResourceFailureException("База недоступна")).when(hitRollupRepository).add(anyMap());
+
+        counters.flush();
+        List<Map<RollupKey, Long>> written = captureWrites();
+        counters.add(List.of(hit(1, 10, second)));
+        counters.flush();
+
+        assertThat(written).containsExactly(Map.of(new RollupKey(second, 1, 10), 3L));
+    }
+
+    @Test
+    void emptyFlushDoesNotTouchRollups() {
+        counters.flush();
+
+        verify(hitRollupRepository, never()).add(anyMap());
+    }
+
+    private List<Map<RollupKey, Long>> captureWrites() {
+        List<Map<RollupKey, Long>> written = new ArrayList<>();
+        doAnswer(invocation -> written.add(new HashMap<>(invocation.getArgument(0))))
+                .when(hitRollupRepository).add(anyMap());
+        return written;
+    }
+
+    private Map<Integer, Long> hits(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        return counters.getHits(start, end, uriIds == null ? null : Set.copyOf(uriIds)).stream()
+                .collect(Collectors.toMap(ViewStats::getUriId, ViewStats::getHits));
+    }
+
+    private static EndpointHit hit(int appId, int uriId, LocalDateTime timestamp) {
+        return new EndpointHit(null, appId, uriId, new byte[]{10, 0, 0, 1}, timestamp);
+    }
+}
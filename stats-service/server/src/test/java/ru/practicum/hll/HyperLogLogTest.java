@@ -0,0 +1,89 @@
+package ru.practicum.hll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    /**
+     * Оценка должна укладываться в три стандартные ошибки 1.04 / sqrt(2^precision).
+     * Входные значения фиксированы, поэтому тест детерминирован.
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "10, 1000", "10, 100000",
+            "12, 1000", "12, 100000", "12, 1000000",
+            "14, 10000", "14, 1000000"
+    })
+    void estimateStaysWithinErrorBound(int precision, int distinct) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        for (int i = 0; i < distinct; i++) {
+            sketch.add(ip(i));
+            sketch.add(ip(i));
+        }
+
+        double standardError = 1.04 / Math.sqrt(1 << precision);
+        assertThat((double) sketch.estimate()).isCloseTo(distinct, within(3 * standardError * distinct));
+    }
+
+    @Test
+    void precisionForRelativeErrorGivesAtMostThatError() {
+        int precision = HyperLogLog.precisionFor(0.02);
+
+        assertThat(precision).isEqualTo(12);
+        assertThat(1.04 / Math.sqrt(1 << precision)).isLessThanOrEqualTo(0.02);
+    }
+
+    @Test
+    void mergeGivesEstimateOfUnion() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (int i = 0; i < 60000; i++) {
+            first.add(ip(i));
+        }
+        for (int i = 40000; i < 100000; i++) {
+            second.add(ip(i));
+        }
+
+        long estimate = first.merge(second).estimate();
+
+        assertThat((double) estimate).isCloseTo(100000, within(3 * 1.04 / 64 * 100000));
+    }
+
+    @Test
+    void foldedSketchEqualsSketchBuiltWithLowerPrecision() {
+        HyperLogLog precise = new HyperLogLog(14);
+        HyperLogLog coarse = new HyperLogLog(11);
+        for (int i = 0; i < 50000; i++) {
+            precise.add(ip(i));
+            coarse.add(ip(i));
+        }
+
+        HyperLogLog folded = new HyperLogLog(11).merge(precise);
+
+        assertThat(folded.getPrecision()).isEqualTo(11);
+        assertThat(folded.toBytes()).isEqualTo(coarse.toBytes());
+    }
+
+    @Test
+    void mergeWithLowerPrecisionLowersPrecisionOfTarget() {
+        HyperLogLog precise = new HyperLogLog(12);
+        HyperLogLog coarse = new HyperLogLog(10);
+        for (int i = 0; i < 20000; i++) {
+            (i % 2 == 0 ? precise : coarse).add(ip(i));
+        }
+
+        HyperLogLog merged = HyperLogLog.fromBytes(precise.toBytes()).merge(coarse);
+
+        assertThat(merged.getPrecision()).isEqualTo(10);
+        assertThat((double) merged.estimate()).isCloseTo(20000, within(3 * 1.04 / 32 * 20000));
+    }
+
+    private static String ip(int i) {
+        return "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff) + "/" + (i >>> 24);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BucketRangeTest {
+
+    private static final List<RollupGranularity> ALL = List.of(RollupGranularity.values());
+
+    @Test
+    void unalignedRangeIsSplitFromCoarseToFineAndRawEdges() {
+        LocalDateTime from = LocalDateTime.of(2026, 3, 1, 10, 30, 15);
+        LocalDateTime to = LocalDateTime.of(2026, 3, 3, 3, 20, 40);
+
+        List<BucketRange> ranges = BucketRange.split(from, to, ALL);
+
+        assertThat(describe(ranges)).containsExactly(
+                "RAW 2026-03-01T10:30:15 2026-03-01T10:31",
+                "MINUTE 2026-03-01T10:31 2026-03-01T11:00",
+                "HOUR 2026-03-01T11:00 2026-03-02T00:00",
+                "DAY 2026-03-02T00:00 2026-03-03T00:00",
+                "HOUR 2026-03-03T00:00 2026-03-03T03:00",
+                "MINUTE 2026-03-03T03:00 2026-03-03T03:20",
+                "RAW 2026-03-03T03:20 2026-03-03T03:20:40");
+        assertContiguous(ranges, from, to);
+    }
+
+    @Test
+    void alignedRangeIsReadFromCoarsestRollupOnly() {
+        LocalDateTime from = LocalDateTime.of(2026, 3, 1, 0, 0);
+
+        assertThat(describe(BucketRange.split(from, from.plusDays(2), ALL)))
+                .containsExactly("DAY 2026-03-01T00:00 2026-03-03T00:00");
+        assertThat(describe(BucketRange.split(from.plusHours(5), from.plusHours(7), ALL)))
+                .containsExactly("HOUR 2026-03-01T05:00 2026-03-01T07:00");
+    }
+
+    @Test
+    void rangeWithinOneMinuteIsReadRaw() {
+        LocalDateTime from = LocalDateTime.of(2026, 3, 1, 10, 30, 15);
+
+        assertThat(describe(BucketRange.split(from, from.plusSeconds(30), ALL)))
+                .containsExactly("RAW 2026-03-01T10:30:15 2026-03-01T10:30:45");
+        assertThat(BucketRange.split(from, from, ALL)).isEmpty();
+    }
+
+    @Test
+    void rangeCrossingBucketBoundaryWithoutWholeBucketSkipsThatLevel() {
+        LocalDateTime from = LocalDateTime.of(2026, 3, 1, 23, 59, 30);
+
+        List<BucketRange> ranges = BucketRange.split(from, from.plusMinutes(2), ALL);
+
+        assertThat(describe(ranges)).containsExactly(
+                "RAW 2026-03-01T23:59:30 2026-03-02T00:00",
+                "MINUTE 2026-03-02T00:00 2026-03-02T00:01",
+                "RAW 2026-03-02T00:01 2026-03-02T00:01:30");
+        assertContiguous(ranges, from, from.plusMinutes(2));
+    }
+
+    private static void assertContiguous(List<BucketRange> ranges, LocalDateTime from, LocalDateTime to) {
+        assertThat(ranges.get(0).getFrom()).isEqualTo(from);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i).getFrom()).isEqualTo(ranges.get(i - 1).getTo());
+        }
+        assertThat(ranges.get(ranges.size() - 1).getTo()).isEqualTo(to);
+    }
+
+    private static List<String> describe(List<BucketRange> ranges) {
+        return ranges.stream()
+                .map(range -> (range.isRaw() ? "RAW" : range.getGranularity().name()) + " " + range.getFrom() + " " +
+                        range.getTo())
+                .collect(Collectors.toList());
+    }
+}
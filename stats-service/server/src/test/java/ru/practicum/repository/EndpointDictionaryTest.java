@@ -0,0 +1,71 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * В пуле одно соединение: если бы словарь вставлял значения в отдельной транзакции,
+ * приём хитов ждал бы второе соединение и падал по таймауту.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+class EndpointDictionaryTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private EndpointDictionary endpointDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void newValuesAreInsertedOnIngestConnection() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<EndpointHitDto> hits = IntStream.range(0, 50)
+                .mapToObj(i -> new EndpointHitDto("dictionary-app-" + i % 3, "/dictionary/" + i, "10.0.0." + i, now))
+                .collect(Collectors.toList());
+
+        statsService.createAll(hits);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM uris WHERE uri LIKE '/dictionary/%'",
+                Long.class)).isEqualTo(50);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM apps WHERE name LIKE 'dictionary-app-%'",
+                Long.class)).isEqualTo(3);
+    }
+
+    @Test
+    void rolledBackValueIsNotCached() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int rolledBackId = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return endpointDictionary.getUriId("/rolled-back");
+        });
+
+        int id = transactionTemplate.execute(status -> endpointDictionary.getUriId("/rolled-back"));
+
+        assertThat(id).isNotEqualTo(rolledBackId);
+        assertThat(jdbcTemplate.queryForObject("SELECT id FROM uris WHERE uri = '/rolled-back'", Integer.class))
+                .isEqualTo(id);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.ViewStatsDto;
+import ru.practicum.service.StatsService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сверяет ответ из агрегатов с подсчётом по endpoints на интервалах с невыровненными
+ * и выровненными границами. Хиты старше окна счётчиков попадают в агрегаты сразу при записи.
+ */
+class HitRollupRepositoryTest extends EmbeddedPostgresTest {
+
+    private static final String APP = "rollup-test";
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<LocalDateTime> timestamps = new ArrayList<>();
+
+    @BeforeEach
+    void fill() {
+        Random random = new Random(42);
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            LocalDateTime timestamp = FIRST_DAY.plusSeconds(random.nextInt(3 * 24 * 3600));
+            timestamps.add(timestamp);
+            hits.add(new EndpointHitDto(APP, "/events/" + random.nextInt(4), "10.6.0." + random.nextInt(200),
+                    timestamp));
+        }
+        jdbcTemplate.update("DELETE FROM endpoints WHERE app_id IN (SELECT id FROM apps WHERE name = ?)", APP);
+        jdbcTemplate.execute("TRUNCATE endpoint_hits_minute, endpoint_hits_hour, endpoint_hits_day");
+        statsService.createAll(hits);
+    }
+
+    @Test
+    void rollupsGiveSameCountsAsRawHits() {
+        Random random = new Random(7);
+        List<LocalDateTime[]> ranges = new ArrayList<>();
+        ranges.add(new LocalDateTime[]{FIRST_DAY, FIRST_DAY.plusDays(3)});
+        ranges.add(new LocalDateTime[]{FIRST_DAY.plusHours(5), FIRST_DAY.plusDays(1).plusHours(2)});
+        // Границы ровно на хитах: оба конца интервала входят в него
+        List<LocalDateTime> sorted = timestamps.stream().sorted().collect(Collectors.toList());
+        ranges.add(new LocalDateTime[]{sorted.get(100), sorted.get(2000)});
+        for (int i = 0; i < 20; i++) {
+            LocalDateTime start = FIRST_DAY.plusSeconds(random.nextInt(3 * 24 * 3600));
+            ranges.add(new LocalDateTime[]{start, start.plusSeconds(random.nextInt(2 * 24 * 3600))});
+        }
+
+        for (LocalDateTime[] range : ranges) {
+            assertThat(fromRollups(range[0], range[1]))
+                    .as("[%s, %s]", range[0], range[1])
+                    .isEqualTo(fromRawHits(range[0], range[1]));
+        }
+    }
+
+    private Map<String, Long> fromRollups(LocalDateTime start, LocalDateTime end) {
+        return statsService.getStatistics(start, end, null, false, false).stream()
+                .filter(viewStatsDto -> APP.equals(viewStatsDto.getApp()))
+                .collect(Collectors.toMap(ViewStatsDto::getUri, ViewStatsDto::getHits));
+    }
+
+    private Map<String, Long> fromRawHits(LocalDateTime start, LocalDateTime end) {
+        Map<String, Long> hits = new HashMap<>();
+        jdbcTemplate.query("SELECT u.uri, COUNT(*) AS hits FROM endpoints e JOIN apps a ON a.id = e.app_id " +
+                        "JOIN uris u ON u.id = e.uri_id WHERE a.name = ? AND e.timestamp BETWEEN ? AND ? " +
+                        "GROUP BY u.uri",
+                (RowCallbackHandler) rs -> hits.put(rs.getString("uri"), rs.getLong("hits")),
+                APP, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        return hits;
+    }
+}
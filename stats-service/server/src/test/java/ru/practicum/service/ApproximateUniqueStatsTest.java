@@ -0,0 +1,120 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.ViewStatsDto;
+import ru.practicum.controller.StatsController;
+import ru.practicum.counter.RecentIpSketches;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Сравнивает ответы /stats с approximate=true и approximate=false на одних данных. Часть хитов записана
+ * как будто до включения скетчей: их скетчи удалены, и приближённый ответ должен учесть их по endpoints.
+ */
+@AutoConfigureMockMvc
+class ApproximateUniqueStatsTest extends EmbeddedPostgresTest {
+
+    private static final String APP = "hll-test";
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /**
+     * Три стандартные ошибки скетча с относительной ошибкой 0.02 (точность 12).
+     */
+    private static final double ERROR_BOUND = 3 * 1.04 / 64;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private RecentIpSketches recentIpSketches;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void approximateStaysWithinErrorBoundOfExact() throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        // Хиты до включения скетчей: в endpoints есть, в скетчах нет
+        statsService.createAll(hits(now.minusDays(3), 0, 3000));
+        recentIpSketches.flush();
+        jdbcTemplate.execute("DELETE FROM endpoint_ips_hour");
+        jdbcTemplate.execute("DELETE FROM endpoint_ips_day");
+        statsService.createAll(hits(now.plusDays(1), 2000, 6000));
+        recentIpSketches.flush();
+
+        List<LocalDateTime[]> ranges = List.of(
+                new LocalDateTime[]{now.plusDays(1).plusMinutes(17), now.plusDays(3)},
+                new LocalDateTime[]{now.minusDays(3), now.plusDays(3)},
+                new LocalDateTime[]{now.minusDays(1), now.plusDays(2).plusMinutes(30)});
+        for (LocalDateTime[] range : ranges) {
+            Map<String, Long> exact = stats(range[0], range[1], false);
+            Map<String, Long> approximate = stats(range[0], range[1], true);
+
+            assertThat(approximate.keySet()).as("[%s, %s]", range[0], range[1]).isEqualTo(exact.keySet());
+            exact.forEach((uri, hits) -> assertThat((double) approximate.get(uri))
+                    .as("%s [%s, %s]", uri, range[0], range[1])
+                    .isCloseTo(hits, within(ERROR_BOUND * hits)));
+        }
+    }
+
+    private Map<String, Long> stats(LocalDateTime start, LocalDateTime end, boolean approximate) throws Exception {
+        MvcResult started = mockMvc.perform(get("/stats")
+                        .param("start", start.format(FORMAT))
+                        .param("end", end.format(FORMAT))
+                        .param("unique", "true")
+                        .param("approximate", String.valueOf(approximate)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(StatsController.APPROXIMATE_HEADER, String.valueOf(approximate)))
+                .andReturn().getResponse().getContentAsString();
+        List<ViewStatsDto> stats = objectMapper.readValue(body, new TypeReference<>() {
+        });
+        return stats.stream()
+                .filter(viewStatsDto -> APP.equals(viewStatsDto.getApp()))
+                .collect(Collectors.toMap(ViewStatsDto::getUri, ViewStatsDto::getHits));
+    }
+
+    /**
+     * Хиты с IP номер from..to - 1 по двум uri, разнесённые на двое суток от start, каждый IP дважды.
+     */
+    private static List<EndpointHitDto> hits(LocalDateTime start, int from, int to) {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            String ip = "10.7." + i / 250 + "." + i % 250;
+            for (int repeat = 0; repeat < 2; repeat++) {
+                hits.add(new EndpointHitDto(APP, "/events/" + (i + repeat) % 2, ip,
+                        start.plusSeconds((i * 37L + repeat * 3600L) % (2 * 24 * 3600))));
+            }
+        }
+        return hits;
+    }
+}
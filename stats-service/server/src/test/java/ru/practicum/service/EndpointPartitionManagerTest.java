@@ -0,0 +1,72 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.repository.EndpointPartitionRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "stats.partition.interval=DAY",
+        "stats.partition.create-ahead=2",
+        "stats.partition.retention-days=30"
+})
+class EndpointPartitionManagerTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private EndpointPartitionRepository partitionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void partitionsOfRetentionWindowAreCreatedInAdvance() {
+        List<String> partitions = partitionRepository.findPartitionNames();
+
+        assertThat(partitions).hasSize(30 + 1 + 2);
+    }
+
+    @Test
+    void hitsWithinWindowNeedNoNewPartitions() {
+        int partitions = partitionRepository.findPartitionNames().size();
+
+        statsService.createAll(List.of(
+                hit("/window/recent", LocalDateTime.now().minusDays(10)),
+                hit("/window/ahead", LocalDateTime.now().plusDays(1))));
+
+        assertThat(partitionRepository.findPartitionNames()).hasSize(partitions);
+        assertThat(countRaw("/window/%")).isEqualTo(2);
+    }
+
+    @Test
+    void hitsOlderThanRetentionGoOnlyToRollups() {
+        int partitions = partitionRepository.findPartitionNames().size();
+        LocalDateTime expired = LocalDateTime.now().minusDays(60);
+
+        statsService.createAll(List.of(hit("/expired", expired), hit("/expired", expired)));
+
+        assertThat(partitionRepository.findPartitionNames()).hasSize(partitions);
+        assertThat(countRaw("/expired")).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(d.hits) FROM endpoint_hits_day d " +
+                "JOIN uris u ON u.id = d.uri_id WHERE u.uri = '/expired'", Long.class)).isEqualTo(2);
+    }
+
+    private long countRaw(String uriPattern) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM endpoints e JOIN uris u ON u.id = e.uri_id " +
+                "WHERE u.uri LIKE ?", Long.class, uriPattern);
+    }
+
+    private static EndpointHitDto hit(String uri, LocalDateTime timestamp) {
+        return new EndpointHitDto("partition-test", uri, "10.1.0.1", timestamp.withNano(0));
+    }
+}
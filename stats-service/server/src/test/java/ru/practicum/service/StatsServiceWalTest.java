@@ -0,0 +1,61 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.wal.HitLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * В режиме журнала приём хитов не должен открывать транзакцию и занимать соединение из пула.
+ */
+@TestPropertySource(properties = {
+        "stats.ingest.mode=wal",
+        "stats.wal.flush-interval-ms=600000"
+})
+class StatsServiceWalTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private StatsService statsService;
+
+    @SpyBean
+    private HitLog hitLog;
+
+    @DynamicPropertySource
+    static void walDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("hit-log").toString();
+        registry.add("stats.wal.dir", () -> directory);
+    }
+
+    @Test
+    void walIngestRunsWithoutTransaction() {
+        List<Boolean> inTransaction = new ArrayList<>();
+        doAnswer(invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.callRealMethod();
+        }).when(hitLog).appendAll(anyList());
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        statsService.create(new EndpointHitDto("wal-test", "/events/1", "10.5.0.1", now));
+        statsService.createAll(List.of(
+                new EndpointHitDto("wal-test", "/events/2", "10.5.0.2", now),
+                new EndpointHitDto("wal-test", "/events/3", "10.5.0.3", now)));
+
+        assertThat(inTransaction).containsExactly(false, false);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.wal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.model.HitLogCheckpoint;
+import ru.practicum.repository.HitLogCheckpointRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "stats.ingest.mode=wal",
+        "stats.wal.flush-interval-ms=600000"
+})
+class HitLogFlusherTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private HitLog hitLog;
+
+    @Autowired
+    private HitLogFlusher hitLogFlusher;
+
+    @Autowired
+    private HitLogCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void walDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("hit-log").toString();
+        registry.add("stats.wal.dir", () -> directory);
+    }
+
+    @Test
+    void poisonRecordIsDeadLetteredAndFlushContinues() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        // В обход валидации контроллера: так в журнал попадали записи до проверки длины
+        hitLog.appendAll(List.of(
+                new EndpointHitDto("wal-test", "/wal/before", "10.2.0.1", now),
+                new EndpointHitDto("wal-test", "/wal/" + "x".repeat(300), "10.2.0.2", now),
+                new EndpointHitDto("wal-test", "/wal/after", "10.2.0.3", now)));
+
+        hitLogFlusher.flush();
+        hitLog.append(new EndpointHitDto("wal-test", "/wal/next", "10.2.0.4", now));
+        hitLogFlusher.flush();
+
+        assertThat(jdbcTemplate.queryForList("SELECT u.uri FROM endpoints e JOIN uris u ON u.id = e.uri_id " +
+                "WHERE u.uri LIKE '/wal/%' ORDER BY e.id", String.class))
+                .containsExactly("/wal/before", "/wal/after", "/wal/next");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hit_log_dead_letters WHERE app = 'wal-test'",
+                Long.class)).isEqualTo(1);
+        HitLogCheckpoint checkpoint = checkpointRepository.find();
+        assertThat(checkpoint.getSegment()).isEqualTo(hitLog.activeSequence());
+        assertThat(checkpoint.getPosition()).isPositive();
+    }
+}
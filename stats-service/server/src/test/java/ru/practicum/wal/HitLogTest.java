@@ -0,0 +1,86 @@
+package ru.practicum.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.model.HitLogCheckpoint;
+import ru.practicum.repository.HitLogCheckpointRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HitLogTest {
+
+    private static final int SEGMENT_SIZE = 512;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void batchSpanningSegmentsIsWrittenWhole() throws IOException {
+        HitLog hitLog = hitLog();
+
+        hitLog.appendAll(hits(20));
+
+        assertThat(hitLog.activeSequence()).isPositive();
+        assertThat(readAll(hitLog)).isEqualTo(hits(20));
+        hitLog.close();
+    }
+
+    @Test
+    void failedSegmentRollLeavesNoPartOfBatch() throws IOException {
+        HitLog hitLog = hitLog();
+        hitLog.append(hit(-1));
+        // Следующий сегмент не создать: на его месте уже есть файл
+        Files.createFile(directory.resolve(String.format("segment-%020d.log", 1)));
+
+        assertThatThrownBy(() -> hitLog.appendAll(hits(20))).isInstanceOf(UncheckedIOException.class);
+
+        assertThat(hitLog.activeSequence()).isZero();
+        assertThat(readAll(hitLog)).containsExactly(hit(-1));
+        hitLog.close();
+    }
+
+    private HitLog hitLog() throws IOException {
+        HitLogCheckpointRepository checkpointRepository = mock(HitLogCheckpointRepository.class);
+        when(checkpointRepository.find()).thenReturn(new HitLogCheckpoint(0, 0));
+        return new HitLog(checkpointRepository, directory.toString(), SEGMENT_SIZE, HitLogFsyncPolicy.NONE);
+    }
+
+    private static List<EndpointHitDto> readAll(HitLog hitLog) throws IOException {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (long sequence : hitLog.segmentSequences()) {
+            HitLogSegment segment = hitLog.openForRead(sequence);
+            int position = 0;
+            ByteBuffer payload;
+            while ((payload = segment.read(position)) != null) {
+                position += HitLogSegment.HEADER_SIZE + payload.remaining();
+                hits.add(HitLogCodec.decode(payload));
+            }
+        }
+        return hits;
+    }
+
+    private static List<EndpointHitDto> hits(int count) {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hits.add(hit(i));
+        }
+        return hits;
+    }
+
+    private static EndpointHitDto hit(int i) {
+        return new EndpointHitDto("wal-test", "/events/" + i, "10.4.0.1", LocalDateTime.of(2026, 1, 1, 0, 0));
+    }
+}